@@ -3,12 +3,14 @@ package com.pizza.ordering;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main Spring Boot Application
  */
 @SpringBootApplication
 @EnableJpaAuditing
+@EnableScheduling
 public class PizzaOrderingApplication {
 
     public static void main(String[] args) {
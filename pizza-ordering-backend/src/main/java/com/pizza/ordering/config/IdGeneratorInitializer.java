@@ -0,0 +1,71 @@
+package com.pizza.ordering.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Seed the pooled ID generators so they start above IDs handed out earlier by AUTO_INCREMENT.
+ * Each generator row in id_generators holds the next block boundary; every node reserves a block of
+ * ALLOCATION_SIZE IDs with one row update, so IDs stay unique across nodes.
+ */
+@Component
+public class IdGeneratorInitializer {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdGeneratorInitializer.class);
+
+    public static final String TABLE = "id_generators";
+    public static final String NAME_COLUMN = "sequence_name";
+    public static final String VALUE_COLUMN = "next_val";
+    public static final int ALLOCATION_SIZE = 50;
+
+    // Generator name -> table whose IDs it allocates
+    private static final Map<String, String> GENERATED_TABLES = Map.of(
+            "orders", "orders",
+            "order_items", "order_items");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Not used directly; ensures the schema (including id_generators) has been updated first
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @PostConstruct
+    public void init() {
+        GENERATED_TABLES.forEach(this::seed);
+    }
+
+    /**
+     * Raise the generator above the table's current maximum ID; never lowers it
+     * The extra block covers the pooled optimizer handing out IDs just below the stored value.
+     */
+    private void seed(String generator, String table) {
+        Long maxId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + table, Long.class);
+        long floor = maxId + ALLOCATION_SIZE + 1;
+
+        if (raise(generator, floor) == 0) {
+            try {
+                jdbcTemplate.update("INSERT INTO " + TABLE + " (" + NAME_COLUMN + ", " + VALUE_COLUMN + ") VALUES (?, ?)",
+                        generator, floor);
+            } catch (DuplicateKeyException e) {
+                // Another node inserted the row first
+                raise(generator, floor);
+            }
+        }
+        logger.debug("ID generator {} seeded to at least {}", generator, floor);
+    }
+
+    private int raise(String generator, long floor) {
+        return jdbcTemplate.update(
+                "UPDATE " + TABLE + " SET " + VALUE_COLUMN + " = GREATEST(" + VALUE_COLUMN + ", ?) WHERE " + NAME_COLUMN + " = ?",
+                floor, generator);
+    }
+}
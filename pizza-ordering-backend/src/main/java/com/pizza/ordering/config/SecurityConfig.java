@@ -1,7 +1,9 @@
 package com.pizza.ordering.config;
 
+import com.pizza.ordering.security.BoundedPasswordEncoder;
 import com.pizza.ordering.security.CustomUserDetailsService;
 import com.pizza.ordering.security.JwtAuthenticationFilter;
+import com.pizza.ordering.security.RateLimitFilter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -15,7 +17,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.CorsConfiguration;
@@ -39,12 +40,31 @@ public class SecurityConfig {
     @Autowired
     private JwtAuthenticationFilter jwtAuthenticationFilter;
 
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
     @Value("${cors.allowed.origins}")
     private String allowedOrigins;
 
+    @Value("${password.hashing.threads}")
+    private int passwordHashingThreads;
+
+    @Value("${password.hashing.queue.capacity}")
+    private int passwordHashingQueueCapacity;
+
+    @Value("${password.hashing.retry.after}")
+    private long passwordHashingRetryAfter;
+
+    /**
+     * BCrypt on a dedicated bounded pool so login bursts cannot take over the request threads
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder() {
+        return new BoundedPasswordEncoder(
+                new BCryptPasswordEncoder(),
+                passwordHashingThreads,
+                passwordHashingQueueCapacity,
+                passwordHashingRetryAfter);
     }
 
     @Bean
@@ -70,19 +90,21 @@ public class SecurityConfig {
                         // Public endpoints
                         .requestMatchers("/auth/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/pizzas/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/images/**").permitAll()
                         .requestMatchers("/ws/**").permitAll()
                         .requestMatchers("/payment/webhook").permitAll()
 
                         // Admin-only endpoints
                         .requestMatchers("/admin/**").hasRole("ADMIN")
-                        .requestMatchers(HttpMethod.POST, "/pizzas").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/pizzas", "/pizzas/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/pizzas/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/pizzas/**").hasRole("ADMIN")
 
                         // All other endpoints require authentication
                         .anyRequest().authenticated())
                 .authenticationProvider(authenticationProvider())
-                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -91,8 +113,9 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
-        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("X-Menu-Version", "ETag"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L);
 
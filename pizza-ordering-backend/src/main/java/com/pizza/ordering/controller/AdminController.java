@@ -1,10 +1,19 @@
 package com.pizza.ordering.controller;
 
 import com.pizza.ordering.dto.ApiResponse;
+import com.pizza.ordering.dto.CursorPage;
 import com.pizza.ordering.dto.OrderResponse;
+import com.pizza.ordering.dto.OrderSummaryResponse;
 import com.pizza.ordering.entity.Order;
+import com.pizza.ordering.security.BoundedPasswordEncoder;
+import com.pizza.ordering.security.RateLimitFilter;
+import com.pizza.ordering.security.VerifiedTokenCache;
+import com.pizza.ordering.service.CartService;
+import com.pizza.ordering.service.IdempotencyService;
+import com.pizza.ordering.service.OrderIntakeService;
 import com.pizza.ordering.service.OrderService;
 import com.pizza.ordering.service.WebSocketService;
+import com.pizza.ordering.service.WriteBehindCartStore;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -13,6 +22,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.Map;
+
 /**
  * Controller for admin operations
  */
@@ -24,9 +35,30 @@ public class AdminController {
     @Autowired
     private OrderService orderService;
 
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     @Autowired
     private WebSocketService webSocketService;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    @Autowired
+    private BoundedPasswordEncoder passwordEncoder;
+
+    @Autowired
+    private RateLimitFilter rateLimitFilter;
+
+    @Autowired(required = false)
+    private WriteBehindCartStore cartStore;
+
+    @Autowired(required = false)
+    private OrderIntakeService orderIntakeService;
+
     /**
      * Get all orders with pagination
      */
@@ -48,6 +80,32 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    /**
+     * Get the order feed with cursor pagination, newest first
+     * Pass the returned nextCursor as "after" to get the next page.
+     */
+    @GetMapping("/orders/feed")
+    public ResponseEntity<ApiResponse<CursorPage<OrderResponse>>> getOrderFeed(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Order.OrderStatus status) {
+
+        return ResponseEntity.ok(ApiResponse.success(orderService.getOrderFeed(status, after, size)));
+    }
+
+    /**
+     * Get order summaries with cursor pagination, newest first
+     * Served from the order_summary read model; use /orders/{id} for full item details.
+     */
+    @GetMapping("/orders/summaries")
+    public ResponseEntity<ApiResponse<CursorPage<OrderSummaryResponse>>> getOrderSummaries(
+            @RequestParam(required = false) String after,
+            @RequestParam(defaultValue = "20") int size,
+            @RequestParam(required = false) Order.OrderStatus status) {
+
+        return ResponseEntity.ok(ApiResponse.success(orderService.getOrderSummaries(status, after, size)));
+    }
+
     /**
      * Update order status
      */
@@ -64,4 +122,62 @@ public class AdminController {
 
         return ResponseEntity.ok(ApiResponse.success(order, "Order status updated"));
     }
+
+    /**
+     * Get verified-token cache statistics
+     */
+    @GetMapping("/stats/token-cache")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getTokenCacheStats() {
+        return ResponseEntity.ok(ApiResponse.success(verifiedTokenCache.getStats()));
+    }
+
+    /**
+     * Get password hashing pool statistics
+     */
+    @GetMapping("/stats/password-hashing")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getPasswordHashingStats() {
+        return ResponseEntity.ok(ApiResponse.success(passwordEncoder.getStats()));
+    }
+
+    /**
+     * Get number of tracked rate-limit buckets per route group
+     */
+    @GetMapping("/stats/rate-limits")
+    public ResponseEntity<ApiResponse<Map<String, Integer>>> getRateLimitStats() {
+        return ResponseEntity.ok(ApiResponse.success(rateLimitFilter.getStats()));
+    }
+
+    /**
+     * Get write-behind cart store statistics
+     */
+    @GetMapping("/stats/cart-store")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getCartStoreStats() {
+        Map<String, Object> stats = cartStore != null ? cartStore.getStats() : Map.of("mode", "database");
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * Get asynchronous order intake queue statistics
+     */
+    @GetMapping("/stats/order-intake")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getOrderIntakeStats() {
+        Map<String, Object> stats = orderIntakeService != null ? orderIntakeService.getStats() : Map.of("mode", "sync");
+        return ResponseEntity.ok(ApiResponse.success(stats));
+    }
+
+    /**
+     * Get idempotency key cache and replay statistics
+     */
+    @GetMapping("/stats/idempotency")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getIdempotencyStats() {
+        return ResponseEntity.ok(ApiResponse.success(idempotencyService.getStats()));
+    }
+
+    /**
+     * Get cart write retry and conflict counts
+     */
+    @GetMapping("/stats/cart-concurrency")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getCartConcurrencyStats() {
+        return ResponseEntity.ok(ApiResponse.success(cartService.getConcurrencyStats()));
+    }
 }
@@ -3,6 +3,7 @@ package com.pizza.ordering.controller;
 import com.pizza.ordering.dto.ApiResponse;
 import com.pizza.ordering.dto.AuthResponse;
 import com.pizza.ordering.dto.LoginRequest;
+import com.pizza.ordering.dto.RefreshTokenRequest;
 import com.pizza.ordering.dto.RegisterRequest;
 import com.pizza.ordering.service.AuthService;
 import jakarta.validation.Valid;
@@ -37,4 +38,27 @@ public class AuthController {
         AuthResponse response = authService.login(request);
         return ResponseEntity.ok(ApiResponse.success(response, "Login successful"));
     }
+
+    /**
+     * Exchange refresh token for a new token pair
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<ApiResponse<AuthResponse>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        AuthResponse response = authService.refresh(request.getRefreshToken());
+        return ResponseEntity.ok(ApiResponse.success(response, "Token refreshed"));
+    }
+
+    /**
+     * Logout user (revokes refresh token and current access token)
+     */
+    @PostMapping("/logout")
+    public ResponseEntity<ApiResponse<Void>> logout(
+            @Valid @RequestBody RefreshTokenRequest request,
+            @RequestHeader(value = "Authorization", required = false) String authorization) {
+        String accessToken = authorization != null && authorization.startsWith("Bearer ")
+                ? authorization.substring(7)
+                : null;
+        authService.logout(request.getRefreshToken(), accessToken);
+        return ResponseEntity.ok(ApiResponse.success(null, "Logout successful"));
+    }
 }
@@ -3,13 +3,12 @@ package com.pizza.ordering.controller;
 import com.pizza.ordering.dto.ApiResponse;
 import com.pizza.ordering.dto.CartItemRequest;
 import com.pizza.ordering.dto.CartResponse;
-import com.pizza.ordering.entity.User;
-import com.pizza.ordering.repository.UserRepository;
+import com.pizza.ordering.dto.CartUpdateRequest;
+import com.pizza.ordering.security.CurrentUserId;
 import com.pizza.ordering.service.CartService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 /**
@@ -22,15 +21,11 @@ public class CartController {
     @Autowired
     private CartService cartService;
 
-    @Autowired
-    private UserRepository userRepository;
-
     /**
      * Get current user's cart
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<CartResponse>> getCart(Authentication authentication) {
-        Long userId = getUserId(authentication);
+    public ResponseEntity<ApiResponse<CartResponse>> getCart(@CurrentUserId Long userId) {
         CartResponse cart = cartService.getCart(userId);
         return ResponseEntity.ok(ApiResponse.success(cart));
     }
@@ -41,8 +36,7 @@ public class CartController {
     @PostMapping("/items")
     public ResponseEntity<ApiResponse<CartResponse>> addToCart(
             @Valid @RequestBody CartItemRequest request,
-            Authentication authentication) {
-        Long userId = getUserId(authentication);
+            @CurrentUserId Long userId) {
         CartResponse cart = cartService.addToCart(userId, request.getPizzaId());
         return ResponseEntity.ok(ApiResponse.success(cart, "Item added to cart"));
     }
@@ -54,8 +48,7 @@ public class CartController {
     public ResponseEntity<ApiResponse<CartResponse>> updateCartItem(
             @PathVariable Long pizzaId,
             @RequestParam Integer quantity,
-            Authentication authentication) {
-        Long userId = getUserId(authentication);
+            @CurrentUserId Long userId) {
         CartResponse cart = cartService.updateCartItem(userId, pizzaId, quantity);
         return ResponseEntity.ok(ApiResponse.success(cart, "Cart updated"));
     }
@@ -66,29 +59,28 @@ public class CartController {
     @DeleteMapping("/items/{pizzaId}")
     public ResponseEntity<ApiResponse<CartResponse>> removeFromCart(
             @PathVariable Long pizzaId,
-            Authentication authentication) {
-        Long userId = getUserId(authentication);
+            @CurrentUserId Long userId) {
         CartResponse cart = cartService.removeFromCart(userId, pizzaId);
         return ResponseEntity.ok(ApiResponse.success(cart, "Item removed from cart"));
     }
 
     /**
-     * Clear cart
+     * Apply several SET/ADD/REMOVE operations in one round trip
      */
-    @DeleteMapping
-    public ResponseEntity<ApiResponse<Void>> clearCart(Authentication authentication) {
-        Long userId = getUserId(authentication);
-        cartService.clearCart(userId);
-        return ResponseEntity.ok(ApiResponse.success(null, "Cart cleared"));
+    @PatchMapping
+    public ResponseEntity<ApiResponse<CartResponse>> updateCart(
+            @Valid @RequestBody CartUpdateRequest request,
+            @CurrentUserId Long userId) {
+        CartResponse cart = cartService.updateCart(userId, request.getOperations());
+        return ResponseEntity.ok(ApiResponse.success(cart, "Cart updated"));
     }
 
     /**
-     * Helper method to get user ID from authentication
+     * Clear cart
      */
-    private Long getUserId(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
+    @DeleteMapping
+    public ResponseEntity<ApiResponse<Void>> clearCart(@CurrentUserId Long userId) {
+        cartService.clearCart(userId);
+        return ResponseEntity.ok(ApiResponse.success(null, "Cart cleared"));
     }
 }
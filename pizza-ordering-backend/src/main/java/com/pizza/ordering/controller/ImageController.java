@@ -0,0 +1,78 @@
+package com.pizza.ordering.controller;
+
+import com.pizza.ordering.service.ImageStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Controller for serving stored pizza images (public)
+ */
+@RestController
+@RequestMapping("/images")
+public class ImageController {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    // Names are content hashes, so a URL always refers to the same bytes
+    private static final String CACHE_FOREVER = "public, max-age=31536000, immutable";
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    /**
+     * Serve an image or thumbnail.
+     * Uses Tomcat sendfile when available so the kernel copies the file straight to the socket;
+     * otherwise falls back to FileChannel.transferTo into the response stream.
+     */
+    @GetMapping("/{name}")
+    public void getImage(@PathVariable String name,
+                         @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                         HttpServletRequest request,
+                         HttpServletResponse response) throws IOException {
+        Path path = imageStorageService.resolve(name);
+        String etag = "\"" + name + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_FOREVER);
+        response.setHeader(HttpHeaders.ETAG, etag);
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = file.size();
+            response.setContentType(imageStorageService.contentType(name));
+            response.setContentLengthLong(size);
+
+            if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+                request.setAttribute(SENDFILE_FILENAME, path.toString());
+                request.setAttribute(SENDFILE_START, 0L);
+                request.setAttribute(SENDFILE_END, size);
+                return;
+            }
+
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size) {
+                position += file.transferTo(position, size - position, out);
+            }
+        }
+    }
+}
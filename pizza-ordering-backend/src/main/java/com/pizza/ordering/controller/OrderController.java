@@ -1,16 +1,21 @@
 package com.pizza.ordering.controller;
 
 import com.pizza.ordering.dto.ApiResponse;
+import com.pizza.ordering.dto.CursorPage;
+import com.pizza.ordering.dto.OrderIntakeResponse;
 import com.pizza.ordering.dto.OrderResponse;
-import com.pizza.ordering.entity.User;
-import com.pizza.ordering.repository.UserRepository;
+import com.pizza.ordering.exception.ResourceNotFoundException;
+import com.pizza.ordering.security.CurrentUserId;
+import com.pizza.ordering.service.IdempotencyService;
+import com.pizza.ordering.service.OrderIntakeService;
 import com.pizza.ordering.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -20,19 +25,36 @@ import java.util.List;
 @RequestMapping("/orders")
 public class OrderController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     @Autowired
     private OrderService orderService;
 
     @Autowired
-    private UserRepository userRepository;
+    private IdempotencyService idempotencyService;
+
+    @Autowired(required = false)
+    private OrderIntakeService orderIntakeService;
 
     /**
      * Create order from cart
+     * A retry with the same Idempotency-Key returns the order placed by the first attempt.
+     * With order.intake.mode=async the order is queued instead and 202 is returned with an intake reference.
      */
     @PostMapping
-    public ResponseEntity<ApiResponse<OrderResponse>> createOrder(Authentication authentication) {
-        Long userId = getUserId(authentication);
-        OrderResponse order = orderService.createOrder(userId);
+    public ResponseEntity<ApiResponse<?>> createOrder(
+            @CurrentUserId Long userId,
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        if (orderIntakeService != null) {
+            OrderIntakeResponse intake = idempotencyService.execute(idempotencyKey, userId, "create-order-intake", "",
+                    OrderIntakeResponse.class, () -> orderIntakeService.submit(userId));
+            return ResponseEntity
+                    .status(HttpStatus.ACCEPTED)
+                    .body(ApiResponse.success(intake, "Order received"));
+        }
+
+        OrderResponse order = idempotencyService.execute(idempotencyKey, userId, "create-order", "",
+                OrderResponse.class, () -> orderService.createOrder(userId));
         return ResponseEntity
                 .status(HttpStatus.CREATED)
                 .body(ApiResponse.success(order, "Order placed successfully"));
@@ -42,20 +64,55 @@ public class OrderController {
      * Get current user's orders
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrders(Authentication authentication) {
-        Long userId = getUserId(authentication);
+    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrders(@CurrentUserId Long userId) {
         List<OrderResponse> orders = orderService.getUserOrders(userId);
         return ResponseEntity.ok(ApiResponse.success(orders));
     }
 
+    /**
+     * Get current user's orders with cursor pagination, newest first
+     * Pass the returned nextCursor as "after" to get the next page.
+     * Not combined with since, which has its own handler; a request with both is served as a delta.
+     */
+    @GetMapping(params = {"size", "!since"})
+    public ResponseEntity<ApiResponse<CursorPage<OrderResponse>>> getUserOrdersPage(
+            @CurrentUserId Long userId,
+            @RequestParam int size,
+            @RequestParam(required = false) String after) {
+        return ResponseEntity.ok(ApiResponse.success(orderService.getUserOrders(userId, after, size)));
+    }
+
+    /**
+     * Get current user's orders changed after the latest updatedAt the client has seen
+     * Changes from shortly before since are repeated; deduplicate by id and updatedAt.
+     */
+    @GetMapping(params = "since")
+    public ResponseEntity<ApiResponse<List<OrderResponse>>> getUserOrderChanges(
+            @CurrentUserId Long userId,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        return ResponseEntity.ok(ApiResponse.success(orderService.getUserOrderChanges(userId, since)));
+    }
+
+    /**
+     * Get the status of an order queued for asynchronous placement
+     */
+    @GetMapping("/intake/{reference}")
+    public ResponseEntity<ApiResponse<OrderIntakeResponse>> getOrderIntake(
+            @PathVariable String reference,
+            @CurrentUserId Long userId) {
+        if (orderIntakeService == null) {
+            throw new ResourceNotFoundException("Order intake", "reference", reference);
+        }
+        return ResponseEntity.ok(ApiResponse.success(orderIntakeService.getIntake(reference, userId)));
+    }
+
     /**
      * Get order by ID
      */
     @GetMapping("/{id}")
     public ResponseEntity<ApiResponse<OrderResponse>> getOrderById(
             @PathVariable Long id,
-            Authentication authentication) {
-        Long userId = getUserId(authentication);
+            @CurrentUserId Long userId) {
         OrderResponse order = orderService.getOrderById(id, userId);
         return ResponseEntity.ok(ApiResponse.success(order));
     }
@@ -66,19 +123,8 @@ public class OrderController {
     @PostMapping("/{id}/cancel")
     public ResponseEntity<ApiResponse<OrderResponse>> cancelOrder(
             @PathVariable Long id,
-            Authentication authentication) {
-        Long userId = getUserId(authentication);
+            @CurrentUserId Long userId) {
         OrderResponse order = orderService.cancelOrder(id, userId);
         return ResponseEntity.ok(ApiResponse.success(order, "Order cancelled"));
     }
-
-    /**
-     * Helper method to get user ID from authentication
-     */
-    private Long getUserId(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return user.getId();
-    }
 }
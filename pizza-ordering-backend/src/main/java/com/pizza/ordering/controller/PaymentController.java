@@ -2,6 +2,8 @@ package com.pizza.ordering.controller;
 
 import com.pizza.ordering.dto.ApiResponse;
 import com.pizza.ordering.dto.PaymentIntentResponse;
+import com.pizza.ordering.security.CurrentUserId;
+import com.pizza.ordering.service.IdempotencyService;
 import com.pizza.ordering.service.PaymentService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -17,12 +19,20 @@ public class PaymentController {
     @Autowired
     private PaymentService paymentService;
 
+    @Autowired
+    private IdempotencyService idempotencyService;
+
     /**
      * Create payment intent for order
+     * A retry with the same Idempotency-Key returns the intent created by the first attempt.
      */
     @PostMapping("/create-intent")
-    public ResponseEntity<ApiResponse<PaymentIntentResponse>> createPaymentIntent(@RequestParam Long orderId) {
-        PaymentIntentResponse response = paymentService.createPaymentIntent(orderId);
+    public ResponseEntity<ApiResponse<PaymentIntentResponse>> createPaymentIntent(
+            @RequestParam Long orderId,
+            @CurrentUserId Long userId,
+            @RequestHeader(value = OrderController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
+        PaymentIntentResponse response = idempotencyService.execute(idempotencyKey, userId, "create-payment-intent",
+                "orderId=" + orderId, PaymentIntentResponse.class, () -> paymentService.createPaymentIntent(orderId));
         return ResponseEntity.ok(ApiResponse.success(response, "Payment intent created"));
     }
 
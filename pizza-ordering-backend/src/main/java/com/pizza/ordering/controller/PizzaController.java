@@ -1,16 +1,28 @@
 package com.pizza.ordering.controller;
 
 import com.pizza.ordering.dto.ApiResponse;
+import com.pizza.ordering.dto.MenuDeltaResponse;
+import com.pizza.ordering.dto.PizzaImportResult;
 import com.pizza.ordering.dto.PizzaRequest;
 import com.pizza.ordering.dto.PizzaResponse;
+import com.pizza.ordering.entity.Pizza;
+import com.pizza.ordering.service.MenuPayload;
+import com.pizza.ordering.service.MenuSnapshot;
+import com.pizza.ordering.service.PizzaImportService;
 import com.pizza.ordering.service.PizzaService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.List;
 
 /**
@@ -20,15 +32,84 @@ import java.util.List;
 @RequestMapping("/pizzas")
 public class PizzaController {
 
+    private static final String MENU_VERSION_HEADER = "X-Menu-Version";
+
     @Autowired
     private PizzaService pizzaService;
 
+    @Autowired
+    private PizzaImportService pizzaImportService;
+
     /**
      * Get all available pizzas (public)
+     * Served from pre-serialized bytes; answers 304 when the client already has the current menu.
+     * X-Menu-Version can be passed back as since to fetch only later changes.
      */
     @GetMapping
-    public ResponseEntity<ApiResponse<List<PizzaResponse>>> getAllPizzas() {
-        List<PizzaResponse> pizzas = pizzaService.getAvailablePizzas();
+    public ResponseEntity<byte[]> getAllPizzas(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        MenuSnapshot menu = pizzaService.getSnapshot();
+        MenuPayload payload = menu.getAvailablePayload();
+        boolean gzip = acceptsGzip(acceptEncoding);
+        String etag = gzip ? payload.getGzipEtag() : payload.getEtag();
+
+        if (payload.matches(ifNoneMatch)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .header(MENU_VERSION_HEADER, String.valueOf(menu.getVersion()))
+                    .eTag(etag)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(MENU_VERSION_HEADER, String.valueOf(menu.getVersion()))
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzip());
+        }
+        return response.body(payload.getJson());
+    }
+
+    /**
+     * Get menu changes since a version from X-Menu-Version or a /topic/menu message (public)
+     * Returns the whole menu with full=true when the version is too old to be served as a delta.
+     */
+    @GetMapping(params = "since")
+    public ResponseEntity<ApiResponse<MenuDeltaResponse>> getMenuChanges(@RequestParam long since) {
+        MenuDeltaResponse delta = pizzaService.getMenuChangesSince(since);
+        return ResponseEntity.ok()
+                .header(MENU_VERSION_HEADER, String.valueOf(delta.getVersion()))
+                .body(ApiResponse.success(delta));
+    }
+
+    /**
+     * Get available pizzas in one category (public)
+     */
+    @GetMapping(params = "category")
+    public ResponseEntity<ApiResponse<List<PizzaResponse>>> getPizzasByCategory(
+            @RequestParam Pizza.PizzaCategory category) {
+        List<PizzaResponse> pizzas = pizzaService.getAvailablePizzas(category);
+        return ResponseEntity.ok(ApiResponse.success(pizzas));
+    }
+
+    /**
+     * Search available pizzas (public)
+     * Matches every word of q as a prefix of a name or description word; all filters are optional.
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ApiResponse<List<PizzaResponse>>> searchPizzas(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Pizza.PizzaCategory category,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "RELEVANCE") MenuSnapshot.SearchSort sort) {
+        List<PizzaResponse> pizzas = pizzaService.searchPizzas(q, category, minPrice, maxPrice, sort);
         return ResponseEntity.ok(ApiResponse.success(pizzas));
     }
 
@@ -53,6 +134,38 @@ public class PizzaController {
                 .body(ApiResponse.success(pizza, "Pizza created successfully"));
     }
 
+    /**
+     * Bulk create or update pizzas from a JSON array, matched by name (Admin only)
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<PizzaImportResult>> importPizzasJson(InputStream body) {
+        PizzaImportResult result = pizzaImportService.importJson(body);
+        return ResponseEntity.ok(ApiResponse.success(result, "Import completed"));
+    }
+
+    /**
+     * Bulk create or update pizzas from CSV with a header row, matched by name (Admin only)
+     */
+    @PostMapping(value = "/bulk", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<PizzaImportResult>> importPizzasCsv(InputStream body) {
+        PizzaImportResult result = pizzaImportService.importCsv(body);
+        return ResponseEntity.ok(ApiResponse.success(result, "Import completed"));
+    }
+
+    /**
+     * Upload pizza image; a thumbnail is generated for menu cards (Admin only)
+     */
+    @PostMapping(value = "/{id}/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ApiResponse<PizzaResponse>> uploadPizzaImage(
+            @PathVariable Long id,
+            @RequestParam("file") MultipartFile file) {
+        PizzaResponse pizza = pizzaService.updatePizzaImage(id, file);
+        return ResponseEntity.ok(ApiResponse.success(pizza, "Pizza image updated successfully"));
+    }
+
     /**
      * Update pizza (Admin only)
      */
@@ -74,4 +187,25 @@ public class PizzaController {
         pizzaService.deletePizza(id);
         return ResponseEntity.ok(ApiResponse.success(null, "Pizza deleted successfully"));
     }
+
+    /**
+     * Check if Accept-Encoding allows gzip (ignoring entries with q=0)
+     */
+    private boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.trim().split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equals("*")) {
+                continue;
+            }
+            boolean rejected = parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?");
+            if (!rejected) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -13,14 +13,16 @@ import lombok.NoArgsConstructor;
 @AllArgsConstructor
 public class AuthResponse {
     private String token;
+    private String refreshToken;
     private String type = "Bearer";
     private Long id;
     private String name;
     private String email;
     private User.Role role;
 
-    public AuthResponse(String token, Long id, String name, String email, User.Role role) {
+    public AuthResponse(String token, String refreshToken, Long id, String name, String email, User.Role role) {
         this.token = token;
+        this.refreshToken = refreshToken;
         this.id = id;
         this.name = name;
         this.email = email;
@@ -0,0 +1,46 @@
+package com.pizza.ordering.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for applying several cart changes at once, in order
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartUpdateRequest {
+
+    @NotEmpty(message = "At least one operation is required")
+    @Size(max = 100, message = "At most 100 operations per request")
+    private List<@Valid @NotNull CartOperation> operations;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CartOperation {
+
+        @NotNull(message = "Operation type is required")
+        private OperationType type;
+
+        @NotNull(message = "Pizza ID is required")
+        private Long pizzaId;
+
+        @Min(value = 1, message = "Quantity must be at least 1")
+        private Integer quantity;
+    }
+
+    public enum OperationType {
+        SET,
+        ADD,
+        REMOVE
+    }
+}
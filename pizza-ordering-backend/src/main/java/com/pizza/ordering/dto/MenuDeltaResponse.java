@@ -0,0 +1,21 @@
+package com.pizza.ordering.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Response DTO for menu changes since a client's version.
+ * When full is true the client's version was too old (or unknown) and pizzas holds the whole menu.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuDeltaResponse {
+    private long version;
+    private boolean full;
+    private List<PizzaResponse> pizzas;
+    private List<Long> removedIds;
+}
@@ -0,0 +1,27 @@
+package com.pizza.ordering.dto;
+
+import com.pizza.ordering.entity.OrderIntake;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Response DTO for an order accepted for asynchronous placement
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntakeResponse {
+    private String reference;
+    private OrderIntake.IntakeStatus status;
+    private Long orderId;
+    private String failureReason;
+
+    public static OrderIntakeResponse fromEntity(OrderIntake intake) {
+        return new OrderIntakeResponse(
+                intake.getId(),
+                intake.getStatus(),
+                intake.getOrderId(),
+                intake.getFailureReason());
+    }
+}
@@ -0,0 +1,43 @@
+package com.pizza.ordering.dto;
+
+import com.pizza.ordering.entity.Order;
+import com.pizza.ordering.entity.OrderSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Response DTO for one row of the admin order listing
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummaryResponse {
+    private Long id;
+    private Long userId;
+    private String customerName;
+    private Integer itemCount;
+    private String itemNames;
+    private BigDecimal totalAmount;
+    private Order.OrderStatus orderStatus;
+    private Order.PaymentStatus paymentStatus;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+
+    public static OrderSummaryResponse fromEntity(OrderSummary summary) {
+        return new OrderSummaryResponse(
+                summary.getId(),
+                summary.getUserId(),
+                summary.getCustomerName(),
+                summary.getItemCount(),
+                summary.getItemNames(),
+                summary.getTotalAmount(),
+                summary.getOrderStatus(),
+                summary.getPaymentStatus(),
+                summary.getCreatedAt(),
+                summary.getUpdatedAt());
+    }
+}
@@ -0,0 +1,22 @@
+package com.pizza.ordering.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Response DTO summarizing a bulk menu import
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PizzaImportResult {
+    private int received;
+    private int created;
+    private int updated;
+    private int failed;
+    private List<String> errors = new ArrayList<>();
+}
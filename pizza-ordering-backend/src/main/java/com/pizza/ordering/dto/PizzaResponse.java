@@ -20,6 +20,7 @@ public class PizzaResponse {
     private BigDecimal price;
     private Pizza.PizzaCategory category;
     private String imageUrl;
+    private String thumbnailUrl;
     private Boolean available;
 
     public static PizzaResponse fromEntity(Pizza pizza) {
@@ -30,6 +31,7 @@ public class PizzaResponse {
                 pizza.getPrice(),
                 pizza.getCategory(),
                 pizza.getImageUrl(),
+                pizza.getThumbnailUrl(),
                 pizza.getAvailable());
     }
 }
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -15,7 +16,9 @@ import java.util.List;
  * Cart entity representing user's shopping cart
  */
 @Entity
-@Table(name = "carts")
+@Table(name = "carts", indexes = {
+        @Index(name = "idx_cart_updated_at", columnList = "updatedAt")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,13 +28,28 @@ public class Cart {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @OneToOne
+    @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     private User user;
 
     @OneToMany(mappedBy = "cart", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<CartItem> cartItems = new ArrayList<>();
 
+    // Running totals, kept in step with cart_items by every write path
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Integer totalItems = 0;
+
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long totalCents = 0L;
+
+    // Bumped by every write to the cart, including the native ones in CartRepository
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
+
     @CreationTimestamp
     @Column(nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -5,6 +5,7 @@ import jakarta.validation.constraints.Min;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 /**
  * CartItem entity representing individual items in a cart
@@ -33,4 +34,9 @@ public class CartItem {
     @Min(value = 1, message = "Quantity must be at least 1")
     @Column(nullable = false)
     private Integer quantity = 1;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private Long version = 0L;
 }
@@ -0,0 +1,38 @@
+package com.pizza.ordering.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * IdempotencyRecord entity - outcome of a request sent with an Idempotency-Key header
+ * While the request runs, expiresAt is a short lease; once completed it is the replay deadline.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_expires_at", columnList = "expiresAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @Column(length = 64)
+    private String id; // SHA-256 of operation, user ID and client key
+
+    @Column(nullable = false, length = 64)
+    private String fingerprint; // SHA-256 of the request parameters
+
+    @Column(nullable = false)
+    private Boolean completed = false;
+
+    @Column(columnDefinition = "TEXT")
+    private String response; // JSON of the response data
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -1,5 +1,6 @@
 package com.pizza.ordering.entity;
 
+import com.pizza.ordering.config.IdGeneratorInitializer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -17,18 +18,23 @@ import java.util.List;
  */
 @Entity
 @Table(name = "orders", indexes = {
-        @Index(name = "idx_user_id", columnList = "user_id"),
-        @Index(name = "idx_order_status", columnList = "orderStatus"),
+        @Index(name = "idx_user_created_at_id", columnList = "user_id, createdAt, id"),
+        @Index(name = "idx_user_updated_at", columnList = "user_id, updatedAt"),
+        @Index(name = "idx_order_status_created_at_id", columnList = "orderStatus, createdAt, id"),
         @Index(name = "idx_payment_status", columnList = "paymentStatus"),
-        @Index(name = "idx_created_at", columnList = "createdAt")
+        @Index(name = "idx_created_at_id", columnList = "createdAt, id")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Order {
 
+    // Allocated in blocks from id_generators so inserts can be batched; seeded by IdGeneratorInitializer
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_id")
+    @TableGenerator(name = "order_id", table = IdGeneratorInitializer.TABLE,
+            pkColumnName = IdGeneratorInitializer.NAME_COLUMN, valueColumnName = IdGeneratorInitializer.VALUE_COLUMN,
+            pkColumnValue = "orders", allocationSize = IdGeneratorInitializer.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
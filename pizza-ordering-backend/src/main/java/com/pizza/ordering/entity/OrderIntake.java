@@ -0,0 +1,66 @@
+package com.pizza.ordering.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * OrderIntake entity - an order request accepted for asynchronous placement
+ * The row is the durable copy of the in-memory intake queue; QUEUED rows are re-queued on startup.
+ * The cart's lines are captured on the intake when it is accepted, and those lines are what gets placed.
+ */
+@Entity
+@Table(name = "order_intakes", indexes = {
+        @Index(name = "idx_intake_status_created_at", columnList = "status, createdAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIntake {
+
+    @Id
+    @Column(length = 36)
+    private String id; // Reference returned to the client
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private IntakeStatus status = IntakeStatus.QUEUED;
+
+    // Pizza ID -> quantity, captured from the cart at submit time
+    @ElementCollection
+    @CollectionTable(name = "order_intake_items", joinColumns = @JoinColumn(name = "intake_id"))
+    @MapKeyColumn(name = "pizza_id")
+    @Column(name = "quantity", nullable = false)
+    private Map<Long, Integer> items = new LinkedHashMap<>();
+
+    private Long orderId;
+
+    private String failureReason;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * Intake lifecycle
+     */
+    public enum IntakeStatus {
+        QUEUED,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -1,5 +1,6 @@
 package com.pizza.ordering.entity;
 
+import com.pizza.ordering.config.IdGeneratorInitializer;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -19,7 +20,10 @@ import java.math.BigDecimal;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_id")
+    @TableGenerator(name = "order_item_id", table = IdGeneratorInitializer.TABLE,
+            pkColumnName = IdGeneratorInitializer.NAME_COLUMN, valueColumnName = IdGeneratorInitializer.VALUE_COLUMN,
+            pkColumnValue = "order_items", allocationSize = IdGeneratorInitializer.ALLOCATION_SIZE)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -0,0 +1,58 @@
+package com.pizza.ordering.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * OrderSummary entity - denormalized one-row-per-order read model for admin listings
+ * Written by OrderService alongside every change to the order; item names are captured at order time.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_summary_created_at_id", columnList = "createdAt, id"),
+        @Index(name = "idx_summary_status_created_at_id", columnList = "orderStatus, createdAt, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderSummary {
+
+    public static final int MAX_ITEM_NAMES_LENGTH = 1000;
+
+    @Id
+    private Long id; // Same as the order ID
+
+    @Column(nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private String customerName;
+
+    @Column(nullable = false)
+    private Integer itemCount;
+
+    @Column(nullable = false, length = MAX_ITEM_NAMES_LENGTH)
+    private String itemNames; // e.g. "2x Margherita, 1x Pepperoni"
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.OrderStatus orderStatus;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private Order.PaymentStatus paymentStatus;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -19,7 +19,8 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "pizzas", indexes = {
     @Index(name = "idx_category", columnList = "category"),
-    @Index(name = "idx_available", columnList = "available")
+    @Index(name = "idx_available", columnList = "available"),
+    @Index(name = "idx_pizza_updated_at", columnList = "updatedAt")
 })
 @Data
 @NoArgsConstructor
@@ -49,6 +50,8 @@ public class Pizza {
     
     @Column(nullable = false)
     private String imageUrl;
+
+    private String thumbnailUrl;
     
     @Column(nullable = false)
     private Boolean available = true;
@@ -0,0 +1,40 @@
+package com.pizza.ordering.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * RevokedToken entity - denylist entry for a JWT ID (jti)
+ * Rows are only needed until the token would have expired anyway.
+ */
+@Entity
+@Table(name = "revoked_tokens", indexes = {
+        @Index(name = "idx_revoked_expires_at", columnList = "expiresAt"),
+        @Index(name = "idx_revoked_at", columnList = "revokedAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RevokedToken {
+
+    @Id
+    @Column(length = 36)
+    private String id; // JWT ID (jti)
+
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+
+    @CreationTimestamp
+    @Column(nullable = false, updatable = false)
+    private LocalDateTime revokedAt;
+
+    public RevokedToken(String id, LocalDateTime expiresAt) {
+        this.id = id;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,11 @@
+package com.pizza.ordering.exception;
+
+/**
+ * Exception thrown when a write keeps losing to concurrent changes of the same resource
+ */
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
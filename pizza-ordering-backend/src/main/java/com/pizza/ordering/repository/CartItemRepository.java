@@ -2,8 +2,12 @@ package com.pizza.ordering.repository;
 
 import com.pizza.ordering.entity.CartItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -21,4 +25,40 @@ public interface CartItemRepository extends JpaRepository<CartItem, Long> {
      * Delete all cart items for a specific cart
      */
     void deleteByCartId(Long cartId);
+
+    /**
+     * Add quantity to the user's line for a pizza, inserting it if absent, in one statement.
+     * Relies on the (cart_id, pizza_id) unique constraint; returns 0 if the user has no cart row.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "INSERT INTO cart_items (cart_id, pizza_id, quantity, version) " +
+            "SELECT c.id, :pizzaId, :quantity, 0 FROM carts c WHERE c.user_id = :userId " +
+            "ON DUPLICATE KEY UPDATE quantity = cart_items.quantity + :quantity, version = cart_items.version + 1",
+            nativeQuery = true)
+    int upsertQuantity(@Param("userId") Long userId, @Param("pizzaId") Long pizzaId,
+            @Param("quantity") int quantity);
+
+    /**
+     * Set the quantity of the user's line for a pizza; returns 0 if there is no such line
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE cart_items ci JOIN carts c ON c.id = ci.cart_id SET ci.quantity = :quantity, ci.version = ci.version + 1 " +
+            "WHERE c.user_id = :userId AND ci.pizza_id = :pizzaId", nativeQuery = true)
+    int updateQuantity(@Param("userId") Long userId, @Param("pizzaId") Long pizzaId,
+            @Param("quantity") int quantity);
+
+    /**
+     * Delete the user's line for a pizza; returns 0 if there is no such line
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE ci FROM cart_items ci JOIN carts c ON c.id = ci.cart_id " +
+            "WHERE c.user_id = :userId AND ci.pizza_id = :pizzaId", nativeQuery = true)
+    int deleteItem(@Param("userId") Long userId, @Param("pizzaId") Long pizzaId);
+
+    /**
+     * Delete a cart's lines for several pizzas in one statement
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "DELETE FROM cart_items WHERE cart_id = :cartId AND pizza_id IN (:pizzaIds)", nativeQuery = true)
+    int deleteItems(@Param("cartId") Long cartId, @Param("pizzaIds") Collection<Long> pizzaIds);
 }
@@ -2,8 +2,12 @@ package com.pizza.ordering.repository;
 
 import com.pizza.ordering.entity.Cart;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -12,11 +16,86 @@ import java.util.Optional;
 @Repository
 public interface CartRepository extends JpaRepository<Cart, Long> {
 
+    // Marks the cart as active for the abandoned-cart purge; not used when only prices change
+    String TOUCH = "c.updated_at = NOW(), ";
+
+    String TOTALS_FROM_ITEMS =
+            "c.version = c.version + 1, " +
+            "c.total_items = (SELECT COALESCE(SUM(ci.quantity), 0) FROM cart_items ci WHERE ci.cart_id = c.id), " +
+            "c.total_cents = (SELECT COALESCE(SUM(ci.quantity * ROUND(p.price * 100)), 0) " +
+            "FROM cart_items ci JOIN pizzas p ON p.id = ci.pizza_id WHERE ci.cart_id = c.id) ";
+
     /**
      * Find cart by user ID
      */
     Optional<Cart> findByUserId(Long userId);
 
+    /**
+     * Find cart ID by user ID
+     */
+    @Query("SELECT c.id FROM Cart c WHERE c.user.id = :userId")
+    Optional<Long> findIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find cart ID by user ID and lock the cart row until the transaction ends
+     */
+    @Query(value = "SELECT id FROM carts WHERE user_id = :userId FOR UPDATE", nativeQuery = true)
+    Optional<Long> lockIdByUserId(@Param("userId") Long userId);
+
+    /**
+     * Find cart by user ID with its items and their pizzas in a single query
+     */
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.cartItems ci LEFT JOIN FETCH ci.pizza " +
+            "WHERE c.user.id = :userId")
+    Optional<Cart> findWithItemsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Add a pizza's quantity and price to the user's running totals
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE carts c SET " + TOUCH + "c.version = c.version + 1, c.total_items = c.total_items + :quantity, " +
+            "c.total_cents = c.total_cents + :quantity * (SELECT ROUND(p.price * 100) FROM pizzas p WHERE p.id = :pizzaId) " +
+            "WHERE c.user_id = :userId", nativeQuery = true)
+    int addToTotals(@Param("userId") Long userId, @Param("pizzaId") Long pizzaId, @Param("quantity") int quantity);
+
+    /**
+     * Recompute running totals of the user's cart from its items
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE carts c SET " + TOUCH + TOTALS_FROM_ITEMS + "WHERE c.user_id = :userId", nativeQuery = true)
+    int recalculateTotalsByUserId(@Param("userId") Long userId);
+
+    /**
+     * Recompute running totals of carts from their items
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE carts c SET " + TOUCH + TOTALS_FROM_ITEMS + "WHERE c.id IN (:cartIds)", nativeQuery = true)
+    int recalculateTotals(@Param("cartIds") Collection<Long> cartIds);
+
+    /**
+     * Recompute running totals of a cart only if it is still at the given version; returns 0 on a conflict
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE carts c SET " + TOUCH + TOTALS_FROM_ITEMS + "WHERE c.id = :cartId AND c.version = :version",
+            nativeQuery = true)
+    int recalculateTotalsIfVersion(@Param("cartId") Long cartId, @Param("version") Long version);
+
+    /**
+     * Recompute running totals of carts containing any of the pizzas (after a price change)
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = "UPDATE carts c SET " + TOTALS_FROM_ITEMS +
+            "WHERE c.id IN (SELECT x.cart_id FROM cart_items x WHERE x.pizza_id IN (:pizzaIds))", nativeQuery = true)
+    int recalculateTotalsForPizzas(@Param("pizzaIds") Collection<Long> pizzaIds);
+
+    /**
+     * Fill in totals for carts that have items but were created before totals existed
+     */
+    @Modifying
+    @Query(value = "UPDATE carts c SET " + TOTALS_FROM_ITEMS +
+            "WHERE c.total_items = 0 AND EXISTS (SELECT 1 FROM cart_items x WHERE x.cart_id = c.id)", nativeQuery = true)
+    int backfillTotals();
+
     /**
      * Delete cart by user ID
      */
@@ -0,0 +1,42 @@
+package com.pizza.ordering.repository;
+
+import com.pizza.ordering.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for IdempotencyRecord entity operations
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Restart a record whose lease or replay window has run out; returns 0 if someone else got there first
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE IdempotencyRecord r SET r.fingerprint = :fingerprint, r.completed = false, r.response = null, " +
+            "r.expiresAt = :expiresAt WHERE r.id = :id AND r.expiresAt <= :now")
+    int restartExpired(@Param("id") String id, @Param("fingerprint") String fingerprint,
+            @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+    /**
+     * Store the response of a finished request
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE IdempotencyRecord r SET r.completed = true, r.response = :response, r.expiresAt = :expiresAt " +
+            "WHERE r.id = :id")
+    int complete(@Param("id") String id, @Param("response") String response,
+            @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Delete records past their lease or replay window
+     */
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
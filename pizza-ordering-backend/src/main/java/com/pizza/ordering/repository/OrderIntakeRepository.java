@@ -0,0 +1,52 @@
+package com.pizza.ordering.repository;
+
+import com.pizza.ordering.entity.OrderIntake;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for OrderIntake entity operations
+ */
+@Repository
+public interface OrderIntakeRepository extends JpaRepository<OrderIntake, String> {
+
+    /**
+     * Find an intake and lock its row, so only one worker (on any node) places it
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM OrderIntake i WHERE i.id = :id")
+    Optional<OrderIntake> findForUpdate(@Param("id") String id);
+
+    /**
+     * Find IDs of intakes in a given status, oldest first
+     */
+    @Query("SELECT i.id FROM OrderIntake i WHERE i.status = :status ORDER BY i.createdAt")
+    List<String> findIdsByStatus(@Param("status") OrderIntake.IntakeStatus status, Pageable pageable);
+
+    /**
+     * Find IDs of intakes in a given status created before a point in time, oldest first
+     */
+    @Query("SELECT i.id FROM OrderIntake i WHERE i.status = :status AND i.createdAt < :before ORDER BY i.createdAt")
+    List<String> findIdsByStatusCreatedBefore(@Param("status") OrderIntake.IntakeStatus status,
+            @Param("before") LocalDateTime before, Pageable pageable);
+
+    /**
+     * Set the outcome of an intake that is still queued
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE OrderIntake i SET i.status = :status, i.orderId = :orderId, i.failureReason = :reason, " +
+            "i.updatedAt = CURRENT_TIMESTAMP WHERE i.id = :id AND i.status = :queued")
+    int finish(@Param("id") String id, @Param("status") OrderIntake.IntakeStatus status,
+            @Param("orderId") Long orderId, @Param("reason") String reason,
+            @Param("queued") OrderIntake.IntakeStatus queued);
+}
@@ -3,9 +3,14 @@ package com.pizza.ordering.repository;
 import com.pizza.ordering.entity.Order;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -16,22 +21,92 @@ import java.util.Optional;
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     /**
-     * Find all orders for a specific user
+     * Find order by payment intent ID
      */
-    List<Order> findByUserIdOrderByCreatedAtDesc(Long userId);
+    Optional<Order> findByPaymentIntentId(String paymentIntentId);
 
     /**
-     * Find orders by status with pagination
+     * Find all orders for a user with their items and pizzas in a single query
      */
-    Page<Order> findByOrderStatus(Order.OrderStatus orderStatus, Pageable pageable);
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.pizza"})
+    List<Order> findWithItemsByUserIdOrderByCreatedAtDesc(Long userId);
 
     /**
-     * Find order by payment intent ID
+     * Find a user's orders updated at or after a point in time with their items and pizzas, oldest change first
      */
-    Optional<Order> findByPaymentIntentId(String paymentIntentId);
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.pizza"})
+    List<Order> findWithItemsByUserIdAndUpdatedAtGreaterThanEqualOrderByUpdatedAtAscIdAsc(Long userId,
+            LocalDateTime since);
+
+    /**
+     * First IDs of a user's order history, newest first
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findHistoryIds(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Next IDs of a user's order history after the cursor position (createdAt, id)
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.user.id = :userId " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findHistoryIdsAfter(@Param("userId") Long userId, @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Find an order with its items and pizzas in a single query
+     */
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.pizza"})
+    Optional<Order> findWithItemsById(Long id);
+
+    /**
+     * Find orders by ID with their items and pizzas in a single query; result order is unspecified
+     */
+    @EntityGraph(attributePaths = {"orderItems", "orderItems.pizza"})
+    List<Order> findWithItemsByIdIn(Collection<Long> ids);
+
+    /**
+     * Page of order IDs, newest first
+     * Paging IDs first keeps LIMIT in SQL; fetch-joining the items in the paged query would page in memory.
+     */
+    @Query(value = "SELECT o.id FROM Order o ORDER BY o.createdAt DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<Long> findPageOfIds(Pageable pageable);
+
+    /**
+     * Page of order IDs with a status, newest first
+     */
+    @Query(value = "SELECT o.id FROM Order o WHERE o.orderStatus = :status ORDER BY o.createdAt DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.orderStatus = :status")
+    Page<Long> findPageOfIdsByOrderStatus(@Param("status") Order.OrderStatus status, Pageable pageable);
+
+    /**
+     * First IDs of the order feed, newest first; the page size comes from the Pageable and no count is run
+     */
+    @Query("SELECT o.id FROM Order o ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findFeedIds(Pageable pageable);
+
+    /**
+     * Next IDs of the order feed after the cursor position (createdAt, id)
+     */
+    @Query("SELECT o.id FROM Order o " +
+            "WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findFeedIdsAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * First IDs of the order feed with a status, newest first
+     */
+    @Query("SELECT o.id FROM Order o WHERE o.orderStatus = :status ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findFeedIdsByOrderStatus(@Param("status") Order.OrderStatus status, Pageable pageable);
 
     /**
-     * Find all orders with pagination, ordered by creation date descending
+     * Next IDs of the order feed with a status after the cursor position (createdAt, id)
      */
-    Page<Order> findAllByOrderByCreatedAtDesc(Pageable pageable);
+    @Query("SELECT o.id FROM Order o WHERE o.orderStatus = :status " +
+            "AND (o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id)) " +
+            "ORDER BY o.createdAt DESC, o.id DESC")
+    List<Long> findFeedIdsByOrderStatusAfter(@Param("status") Order.OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
@@ -0,0 +1,75 @@
+package com.pizza.ordering.repository;
+
+import com.pizza.ordering.entity.Order;
+import com.pizza.ordering.entity.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for OrderSummary entity operations
+ */
+@Repository
+public interface OrderSummaryRepository extends JpaRepository<OrderSummary, Long> {
+
+    /**
+     * Copy an order's current statuses into its summary
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE OrderSummary s SET s.orderStatus = :orderStatus, s.paymentStatus = :paymentStatus, " +
+            "s.updatedAt = :updatedAt WHERE s.id = :id")
+    int updateStatuses(@Param("id") Long id, @Param("orderStatus") Order.OrderStatus orderStatus,
+            @Param("paymentStatus") Order.PaymentStatus paymentStatus, @Param("updatedAt") LocalDateTime updatedAt);
+
+    /**
+     * First summaries of the order feed, newest first
+     */
+    @Query("SELECT s FROM OrderSummary s ORDER BY s.createdAt DESC, s.id DESC")
+    List<OrderSummary> findFeed(Pageable pageable);
+
+    /**
+     * Next summaries of the order feed after the cursor position (createdAt, id)
+     */
+    @Query("SELECT s FROM OrderSummary s " +
+            "WHERE s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<OrderSummary> findFeedAfter(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+            Pageable pageable);
+
+    /**
+     * First summaries of the order feed with a status, newest first
+     */
+    @Query("SELECT s FROM OrderSummary s WHERE s.orderStatus = :status ORDER BY s.createdAt DESC, s.id DESC")
+    List<OrderSummary> findFeedByOrderStatus(@Param("status") Order.OrderStatus status, Pageable pageable);
+
+    /**
+     * Next summaries of the order feed with a status after the cursor position (createdAt, id)
+     */
+    @Query("SELECT s FROM OrderSummary s WHERE s.orderStatus = :status " +
+            "AND (s.createdAt < :createdAt OR (s.createdAt = :createdAt AND s.id < :id)) " +
+            "ORDER BY s.createdAt DESC, s.id DESC")
+    List<OrderSummary> findFeedByOrderStatusAfter(@Param("status") Order.OrderStatus status,
+            @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Build summaries for up to :limit orders that do not have one yet (orders placed before the read model existed)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_summary (id, user_id, customer_name, item_count, item_names, total_amount, " +
+            "order_status, payment_status, created_at, updated_at) " +
+            "SELECT o.id, o.user_id, u.name, COALESCE(SUM(oi.quantity), 0), " +
+            "LEFT(COALESCE(GROUP_CONCAT(CONCAT(oi.quantity, 'x ', p.name) ORDER BY oi.id SEPARATOR ', '), ''), 1000), " +
+            "o.total_amount, o.order_status, o.payment_status, o.created_at, o.updated_at " +
+            "FROM orders o JOIN users u ON u.id = o.user_id " +
+            "LEFT JOIN order_items oi ON oi.order_id = o.id LEFT JOIN pizzas p ON p.id = oi.pizza_id " +
+            "WHERE o.id IN (SELECT id FROM (SELECT x.id FROM orders x LEFT JOIN order_summary s ON s.id = x.id " +
+            "WHERE s.id IS NULL ORDER BY x.id LIMIT :limit) missing) " +
+            "GROUP BY o.id", nativeQuery = true)
+    int backfillMissing(@Param("limit") int limit);
+}
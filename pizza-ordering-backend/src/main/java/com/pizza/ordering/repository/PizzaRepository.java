@@ -2,8 +2,12 @@ package com.pizza.ordering.repository;
 
 import com.pizza.ordering.entity.Pizza;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -31,4 +35,16 @@ public interface PizzaRepository extends JpaRepository<Pizza, Long> {
      * Check if pizza name exists excluding specific ID (for updates)
      */
     boolean existsByNameAndIdNot(String name, Long id);
+
+    /**
+     * Find ID and name of pizzas with any of the given names (set-based duplicate check for imports)
+     */
+    @Query("SELECT p.id, p.name FROM Pizza p WHERE p.name IN :names")
+    List<Object[]> findIdAndNameByNameIn(@Param("names") Collection<String> names);
+
+    /**
+     * Find IDs of pizzas created or updated after the given time (menu changes made by other nodes)
+     */
+    @Query("SELECT p.id FROM Pizza p WHERE p.updatedAt > :since")
+    List<Long> findIdsUpdatedAfter(@Param("since") LocalDateTime since);
 }
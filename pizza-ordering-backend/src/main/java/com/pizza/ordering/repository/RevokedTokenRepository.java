@@ -0,0 +1,47 @@
+package com.pizza.ordering.repository;
+
+import com.pizza.ordering.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for RevokedToken entity operations
+ */
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Find IDs of revoked tokens that have not expired yet
+     */
+    @Query("SELECT r.id FROM RevokedToken r WHERE r.expiresAt > :now")
+    List<String> findActiveIds(@Param("now") LocalDateTime now);
+
+    /**
+     * Find IDs of tokens revoked after the given time (revocations made by other nodes)
+     */
+    @Query("SELECT r.id FROM RevokedToken r WHERE r.revokedAt > :since")
+    List<String> findIdsRevokedAfter(@Param("since") LocalDateTime since);
+
+    /**
+     * Insert a denylist entry unless the token is already revoked
+     *
+     * @return 1 if this call revoked the token, 0 if it was already revoked
+     */
+    @Modifying
+    @Query(value = "INSERT INTO revoked_tokens (id, expires_at, revoked_at) VALUES (:id, :expiresAt, NOW()) " +
+            "ON DUPLICATE KEY UPDATE id = id", nativeQuery = true)
+    int insertIfAbsent(@Param("id") String id, @Param("expiresAt") LocalDateTime expiresAt);
+
+    /**
+     * Delete entries whose tokens have expired
+     */
+    @Modifying
+    @Query("DELETE FROM RevokedToken r WHERE r.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
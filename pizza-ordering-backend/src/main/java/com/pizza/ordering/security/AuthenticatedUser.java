@@ -0,0 +1,90 @@
+package com.pizza.ordering.security;
+
+import com.pizza.ordering.entity.User;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * Authenticated principal carrying the user ID and role.
+ * Built either from verified JWT claims (no DB access) or from the User entity.
+ */
+public final class AuthenticatedUser implements UserDetails {
+
+    private final Long id;
+    private final String email;
+    private final String password;
+    private final User.Role role;
+    private final Collection<? extends GrantedAuthority> authorities;
+
+    public AuthenticatedUser(Long id, String email, String password, User.Role role) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+        this.authorities = Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
+
+    /**
+     * Build principal from token claims; returns null if the token lacks the user ID or role claims
+     */
+    public static AuthenticatedUser fromClaims(JwtClaims claims) {
+        if (claims.getUserId() == null || claims.getRole() == null) {
+            return null;
+        }
+        return new AuthenticatedUser(claims.getUserId(), claims.getSubject(), null, User.Role.valueOf(claims.getRole()));
+    }
+
+    /**
+     * Build principal from the persisted user
+     */
+    public static AuthenticatedUser fromEntity(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getPassword(), user.getRole());
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public User.Role getRole() {
+        return role;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    @Override
+    public String getPassword() {
+        return password;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
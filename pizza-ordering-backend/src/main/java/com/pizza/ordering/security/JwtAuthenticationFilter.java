@@ -1,6 +1,8 @@
 package com.pizza.ordering.security;
 
+import com.pizza.ordering.service.TokenRevocationService;
 import com.pizza.ordering.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -8,9 +10,9 @@ import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -19,7 +21,9 @@ import java.io.IOException;
 
 /**
  * JWT Authentication Filter
- * Intercepts requests and validates JWT tokens
+ * Intercepts requests and validates JWT tokens.
+ * The principal is built from the token claims; in strict mode the user is also re-loaded from the DB
+ * so that deleted users or changed roles take effect immediately.
  */
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
@@ -32,28 +36,36 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     @Autowired
     private CustomUserDetailsService userDetailsService;
 
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Value("${jwt.strict.mode:false}")
+    private boolean strictMode;
+
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
 
         try {
             String jwt = extractJwtFromRequest(request);
+            JwtClaims claims = jwt != null ? verifyToken(jwt) : null;
 
-            if (jwt != null && jwtUtil.validateToken(jwt)) {
-                String username = jwtUtil.extractUsername(jwt);
-
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+            if (claims != null && isUsableAccessToken(claims)) {
+                AuthenticatedUser user = resolvePrincipal(claims);
 
-                if (jwtUtil.validateToken(jwt, userDetails)) {
+                if (user != null) {
                     UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            user,
                             null,
-                            userDetails.getAuthorities());
+                            user.getAuthorities());
 
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authentication);
 
-                    logger.debug("Set authentication for user: {}", username);
+                    logger.debug("Set authentication for user: {}", user.getUsername());
                 }
             }
         } catch (Exception ex) {
@@ -63,6 +75,59 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Refresh tokens are only valid at the refresh endpoint; revoked tokens are never valid.
+     * The revocation check is a Bloom-filter lookup unless the token ID might be revoked.
+     */
+    private boolean isUsableAccessToken(JwtClaims claims) {
+        if (claims.isRefreshToken()) {
+            logger.debug("Refresh token presented as access token for: {}", claims.getSubject());
+            return false;
+        }
+        if (tokenRevocationService.isRevoked(claims.getTokenId())) {
+            logger.debug("Revoked token presented for: {}", claims.getSubject());
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Build the principal from claims, falling back to the DB for strict mode or tokens without ID/role claims
+     */
+    private AuthenticatedUser resolvePrincipal(JwtClaims claims) {
+        AuthenticatedUser fromClaims = AuthenticatedUser.fromClaims(claims);
+        if (fromClaims != null && !strictMode) {
+            return fromClaims;
+        }
+
+        AuthenticatedUser fromDb = userDetailsService.loadUserByUsername(claims.getSubject());
+        if (fromClaims != null && !fromClaims.getId().equals(fromDb.getId())) {
+            logger.warn("Token user ID does not match stored user for: {}", claims.getSubject());
+            return null;
+        }
+        return fromDb;
+    }
+
+    /**
+     * Verify the token, reusing the claims of a recently verified identical token; returns null if it is
+     * invalid or expired
+     */
+    private JwtClaims verifyToken(String jwt) {
+        JwtClaims cached = tokenCache.get(jwt);
+        if (cached != null) {
+            return cached;
+        }
+
+        try {
+            JwtClaims claims = jwtUtil.parseToken(jwt);
+            tokenCache.put(jwt, claims);
+            return claims;
+        } catch (JwtException | IllegalArgumentException ex) {
+            logger.debug("Rejected JWT: {}", ex.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Extract JWT token from Authorization header
      */
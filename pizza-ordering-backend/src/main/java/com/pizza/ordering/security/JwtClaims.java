@@ -0,0 +1,97 @@
+package com.pizza.ordering.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * Immutable view of the claims of a verified JWT.
+ * Built once per token so callers never need to parse the same token twice.
+ */
+public final class JwtClaims {
+
+    public static final String TYPE_ACCESS = "access";
+    public static final String TYPE_REFRESH = "refresh";
+
+    private final String tokenId;
+    private final String type;
+    private final String subject;
+    private final Long userId;
+    private final String role;
+    private final Instant issuedAt;
+    private final Instant expiration;
+
+    public JwtClaims(String tokenId, String type, String subject, Long userId, String role, Instant issuedAt,
+            Instant expiration) {
+        this.tokenId = tokenId;
+        this.type = type;
+        this.subject = subject;
+        this.userId = userId;
+        this.role = role;
+        this.issuedAt = issuedAt;
+        this.expiration = expiration;
+    }
+
+    /**
+     * Copy the claims we use out of a parsed token body
+     */
+    public static JwtClaims from(Claims claims) {
+        Object userId = claims.get("uid");
+        return new JwtClaims(
+                claims.getId(),
+                claims.get("typ", String.class),
+                claims.getSubject(),
+                userId instanceof Number ? ((Number) userId).longValue() : null,
+                claims.get("role", String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null);
+    }
+
+    /**
+     * JWT ID (jti); null for tokens issued before revocation support
+     */
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Check if this is a refresh token, which must never be accepted as an access token
+     */
+    public boolean isRefreshToken() {
+        return TYPE_REFRESH.equals(type);
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * User ID claim; null for tokens issued before the claim was added
+     */
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public Instant getIssuedAt() {
+        return issuedAt;
+    }
+
+    public Instant getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * Check if token is expired at the given instant
+     */
+    public boolean isExpired(Instant now) {
+        return expiration != null && expiration.isBefore(now);
+    }
+}
@@ -0,0 +1,186 @@
+package com.pizza.ordering.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pizza.ordering.dto.ApiResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rate Limiting Filter
+ * Applies per-IP and per-user token buckets to the endpoints that are expensive or abuse-prone,
+ * rejecting excess requests with 429 before they reach authentication or the database.
+ * Runs ahead of the JWT filter, so the user is only known when the token has already been
+ * verified recently; otherwise only the IP budget applies.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    /**
+     * Endpoint groups with their own budgets; path is matched against the path below the context path,
+     * exactly or, for prefix groups, together with everything under it
+     */
+    enum RouteGroup {
+        LOGIN("login", "POST", "/auth/login", false),
+        CART_ITEMS("cart", null, "/cart/items", true),
+        CART_BATCH("cart", "PATCH", "/cart", false),
+        ORDER_CREATE("order", "POST", "/orders", false);
+
+        private final String configKey;
+        private final String method;
+        private final String path;
+        private final boolean prefix;
+
+        RouteGroup(String configKey, String method, String path, boolean prefix) {
+            this.configKey = configKey;
+            this.method = method;
+            this.path = path;
+            this.prefix = prefix;
+        }
+
+        boolean matches(String requestMethod, String requestPath) {
+            if (method != null && !method.equals(requestMethod)) {
+                return false;
+            }
+            return requestPath.equals(path) || (prefix && requestPath.startsWith(path + "/"));
+        }
+    }
+
+    @Autowired
+    private Environment environment;
+
+    @Autowired
+    private VerifiedTokenCache tokenCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private boolean enabled;
+
+    // Keyed by config key, so route groups sharing a budget also share their buckets
+    private final Map<String, TokenBucketRateLimiter> ipLimiters = new LinkedHashMap<>();
+
+    private final Map<String, TokenBucketRateLimiter> userLimiters = new LinkedHashMap<>();
+
+    /**
+     * Build limiters from rate.limit.{group}.{ip|user}.capacity / .refill.per.minute
+     */
+    @PostConstruct
+    public void init() {
+        enabled = environment.getProperty("rate.limit.enabled", Boolean.class, true);
+
+        for (RouteGroup group : RouteGroup.values()) {
+            if (ipLimiters.containsKey(group.configKey) || userLimiters.containsKey(group.configKey)) {
+                continue;
+            }
+            TokenBucketRateLimiter ipLimiter = createLimiter(group.configKey, "ip");
+            if (ipLimiter != null) {
+                ipLimiters.put(group.configKey, ipLimiter);
+            }
+            TokenBucketRateLimiter userLimiter = createLimiter(group.configKey, "user");
+            if (userLimiter != null) {
+                userLimiters.put(group.configKey, userLimiter);
+            }
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RouteGroup group = enabled ? resolveGroup(request) : null;
+
+        if (group != null) {
+            long waitNanos = acquire(ipLimiters.get(group.configKey), "ip:" + request.getRemoteAddr());
+
+            if (waitNanos == 0) {
+                Long userId = resolveUserId(request);
+                if (userId != null) {
+                    waitNanos = acquire(userLimiters.get(group.configKey), "user:" + userId);
+                }
+            }
+
+            if (waitNanos > 0) {
+                logger.warn("Rate limit exceeded for {} {} from {}", request.getMethod(), request.getRequestURI(),
+                        request.getRemoteAddr());
+                reject(response, waitNanos);
+                return;
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    /**
+     * Tracked key counts per limiter, for monitoring
+     */
+    public Map<String, Integer> getStats() {
+        Map<String, Integer> stats = new LinkedHashMap<>();
+        ipLimiters.forEach((configKey, limiter) -> stats.put(configKey + ".ip", limiter.size()));
+        userLimiters.forEach((configKey, limiter) -> stats.put(configKey + ".user", limiter.size()));
+        return stats;
+    }
+
+    private TokenBucketRateLimiter createLimiter(String configKey, String scope) {
+        String prefix = "rate.limit." + configKey + "." + scope;
+        Long capacity = environment.getProperty(prefix + ".capacity", Long.class);
+        Long refillPerMinute = environment.getProperty(prefix + ".refill.per.minute", Long.class);
+        if (capacity == null || refillPerMinute == null) {
+            return null;
+        }
+        return new TokenBucketRateLimiter(capacity, refillPerMinute);
+    }
+
+    private RouteGroup resolveGroup(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (RouteGroup group : RouteGroup.values()) {
+            if (group.matches(request.getMethod(), path)) {
+                return group;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * User ID of a bearer token that has already been verified; null if unknown
+     */
+    private Long resolveUserId(HttpServletRequest request) {
+        String bearerToken = request.getHeader("Authorization");
+        if (bearerToken == null || !bearerToken.startsWith("Bearer ")) {
+            return null;
+        }
+        JwtClaims claims = tokenCache.peek(bearerToken.substring(7));
+        return claims != null ? claims.getUserId() : null;
+    }
+
+    private static long acquire(TokenBucketRateLimiter limiter, String key) {
+        return limiter != null ? limiter.tryAcquire(key) : 0;
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos) throws IOException {
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(),
+                ApiResponse.error(429, "Too many requests, please retry later"));
+    }
+}
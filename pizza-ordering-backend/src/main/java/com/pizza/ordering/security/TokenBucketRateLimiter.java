@@ -0,0 +1,86 @@
+package com.pizza.ordering.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keyed token-bucket rate limiter.
+ * Each key has its own bucket guarded by its own lock, so contention is limited to requests
+ * sharing a key. Buckets that have refilled completely are indistinguishable from new ones
+ * and are periodically evicted, which keeps memory bounded by the set of recently active keys.
+ */
+public class TokenBucketRateLimiter {
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private final long capacity;
+    private final double refillPerNano;
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+    private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+    public TokenBucketRateLimiter(long capacity, long refillPerMinute) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+    }
+
+    /**
+     * Take one token for key.
+     * Returns 0 if the request is allowed, otherwise the nanoseconds until a token becomes available.
+     */
+    public long tryAcquire(String key) {
+        long now = System.nanoTime();
+        evictIdleBuckets(now);
+        return buckets.computeIfAbsent(key, k -> new Bucket(capacity, now)).tryAcquire(now);
+    }
+
+    /**
+     * Number of tracked keys
+     */
+    public int size() {
+        return buckets.size();
+    }
+
+    /**
+     * At most once per sweep interval, drop buckets that have refilled to capacity
+     */
+    private void evictIdleBuckets(long now) {
+        long last = lastSweep.get();
+        if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+            return;
+        }
+        buckets.values().removeIf(bucket -> bucket.isFull(now));
+    }
+
+    private final class Bucket {
+
+        private double tokens;
+        private long lastRefill;
+
+        Bucket(long tokens, long now) {
+            this.tokens = tokens;
+            this.lastRefill = now;
+        }
+
+        synchronized long tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / refillPerNano);
+        }
+
+        synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= capacity;
+        }
+
+        private void refill(long now) {
+            if (now > lastRefill) {
+                tokens = Math.min(capacity, tokens + (now - lastRefill) * refillPerNano);
+                lastRefill = now;
+            }
+        }
+    }
+}
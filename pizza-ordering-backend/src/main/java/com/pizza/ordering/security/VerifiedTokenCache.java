@@ -0,0 +1,142 @@
+package com.pizza.ordering.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Size-bounded cache of already verified tokens, keyed by the SHA-256 digest of the token.
+ * Entries are dropped once the token's expiry has passed, so a hit never outlives the token itself.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final ConcurrentHashMap<String, CachedToken> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @Value("${jwt.cache.max.size:10000}")
+    private int maxSize;
+
+    /**
+     * Get verified claims for token; returns null on a miss or if the cached token has expired
+     */
+    public JwtClaims get(String token) {
+        String key = digest(token);
+        CachedToken cached = entries.get(key);
+
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+
+        if (cached.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, cached);
+            evictions.increment();
+            misses.increment();
+            return null;
+        }
+
+        hits.increment();
+        return cached.claims();
+    }
+
+    /**
+     * Look up verified claims without touching the hit/miss counters
+     */
+    public JwtClaims peek(String token) {
+        CachedToken cached = entries.get(digest(token));
+        if (cached == null || cached.isExpired(System.currentTimeMillis())) {
+            return null;
+        }
+        return cached.claims();
+    }
+
+    /**
+     * Cache claims of a token that has just been verified
+     */
+    public void put(String token, JwtClaims claims) {
+        if (claims.getExpiration() == null) {
+            return; // Never cache tokens without an expiry
+        }
+
+        if (entries.size() >= maxSize) {
+            makeRoom();
+        }
+
+        entries.put(digest(token), new CachedToken(claims, claims.getExpiration().toEpochMilli()));
+    }
+
+    /**
+     * Remove a token, e.g. when it has been revoked
+     */
+    public void invalidate(String token) {
+        entries.remove(digest(token));
+    }
+
+    /**
+     * Cache statistics for monitoring
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", entries.size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    /**
+     * Drop expired entries; if the cache is still full, drop an arbitrary tenth of it
+     */
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        entries.values().removeIf(cached -> {
+            boolean expired = cached.isExpired(now);
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+
+        int toEvict = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<String> keys = entries.keySet().iterator();
+        while (toEvict-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+            evictions.increment();
+        }
+    }
+
+    private static String digest(String token) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private record CachedToken(JwtClaims claims, long expiresAtMillis) {
+        boolean isExpired(long nowMillis) {
+            return expiresAtMillis <= nowMillis;
+        }
+    }
+}
@@ -5,8 +5,12 @@ import com.pizza.ordering.dto.LoginRequest;
 import com.pizza.ordering.dto.RegisterRequest;
 import com.pizza.ordering.entity.User;
 import com.pizza.ordering.exception.BadRequestException;
+import com.pizza.ordering.exception.UnauthorizedException;
 import com.pizza.ordering.repository.UserRepository;
+import com.pizza.ordering.security.JwtClaims;
+import com.pizza.ordering.security.VerifiedTokenCache;
 import com.pizza.ordering.util.JwtUtil;
+import io.jsonwebtoken.JwtException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -16,7 +20,6 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service for authentication operations
@@ -38,10 +41,17 @@ public class AuthService {
     @Autowired
     private AuthenticationManager authenticationManager;
 
+    @Autowired
+    private TokenRevocationService tokenRevocationService;
+
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
     /**
      * Register a new user
+     * Not wrapped in a transaction so that no DB connection is held while waiting for the hashing pool;
+     * the unique constraint on email still guards against concurrent duplicates.
      */
-    @Transactional
     public AuthResponse register(RegisterRequest request) {
         logger.info("Registering new user with email: {}", request.getEmail());
 
@@ -60,15 +70,7 @@ public class AuthService {
         user = userRepository.save(user);
         logger.info("User registered successfully with ID: {}", user.getId());
 
-        // Generate JWT token
-        String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
-
-        return new AuthResponse(
-                token,
-                user.getId(),
-                user.getName(),
-                user.getEmail(),
-                user.getRole());
+        return issueTokens(user);
     }
 
     /**
@@ -90,19 +92,85 @@ public class AuthService {
 
             logger.info("User logged in successfully: {}", user.getEmail());
 
-            // Generate JWT token
-            String token = jwtUtil.generateToken(user.getEmail(), user.getRole().name());
-
-            return new AuthResponse(
-                    token,
-                    user.getId(),
-                    user.getName(),
-                    user.getEmail(),
-                    user.getRole());
+            return issueTokens(user);
 
         } catch (BadCredentialsException e) {
             logger.error("Login failed for email: {}", request.getEmail());
             throw new BadCredentialsException("Invalid email or password");
         }
     }
+
+    /**
+     * Exchange a refresh token for a new access/refresh token pair.
+     * The presented refresh token is revoked (rotation), so each one can be used only once:
+     * new tokens are issued only to the request whose revocation inserted the denylist entry.
+     */
+    public AuthResponse refresh(String refreshToken) {
+        JwtClaims claims = parseRefreshToken(refreshToken);
+
+        // Reload user so deleted accounts and role changes are picked up at refresh time
+        User user = userRepository.findByEmail(claims.getSubject())
+                .orElseThrow(() -> new UnauthorizedException("Invalid refresh token"));
+
+        if (!tokenRevocationService.revoke(claims.getTokenId(), claims.getExpiration())) {
+            logger.warn("Revoked refresh token presented for: {}", claims.getSubject());
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+        logger.info("Tokens refreshed for user: {}", user.getEmail());
+
+        return issueTokens(user);
+    }
+
+    /**
+     * Logout: revoke the refresh token and, if present, the access token used for the request
+     */
+    public void logout(String refreshToken, String accessToken) {
+        JwtClaims refreshClaims = parseRefreshToken(refreshToken);
+        tokenRevocationService.revoke(refreshClaims.getTokenId(), refreshClaims.getExpiration());
+
+        if (accessToken != null) {
+            try {
+                JwtClaims accessClaims = jwtUtil.parseToken(accessToken);
+                tokenRevocationService.revoke(accessClaims.getTokenId(), accessClaims.getExpiration());
+                verifiedTokenCache.invalidate(accessToken);
+            } catch (JwtException | IllegalArgumentException e) {
+                logger.debug("Ignoring invalid access token on logout: {}", e.getMessage());
+            }
+        }
+
+        logger.info("User logged out: {}", refreshClaims.getSubject());
+    }
+
+    /**
+     * Verify token and check that it is a refresh token
+     */
+    private JwtClaims parseRefreshToken(String refreshToken) {
+        JwtClaims claims;
+        try {
+            claims = jwtUtil.parseToken(refreshToken);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+
+        if (!claims.isRefreshToken()) {
+            throw new UnauthorizedException("Invalid refresh token");
+        }
+        return claims;
+    }
+
+    /**
+     * Build auth response with a fresh access/refresh token pair
+     */
+    private AuthResponse issueTokens(User user) {
+        String token = jwtUtil.generateToken(user.getId(), user.getEmail(), user.getRole().name());
+        String refreshToken = jwtUtil.generateRefreshToken(user.getId(), user.getEmail(), user.getRole().name());
+
+        return new AuthResponse(
+                token,
+                refreshToken,
+                user.getId(),
+                user.getName(),
+                user.getEmail(),
+                user.getRole());
+    }
 }
@@ -0,0 +1,99 @@
+package com.pizza.ordering.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Service for deleting abandoned carts.
+ * Carts untouched for cart.purge.retention.days are deleted in small batches, each in its own
+ * short transaction, with a pause between batches so the job never holds locks for long.
+ * Carts being written at the time are skipped (SKIP LOCKED) and left for the next run.
+ */
+@Service
+public class CartPurgeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CartPurgeService.class);
+
+    private static final String SELECT_STALE_SQL =
+            "SELECT id FROM carts WHERE updated_at < ? ORDER BY updated_at LIMIT ? FOR UPDATE SKIP LOCKED";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${cart.purge.retention.days}")
+    private int retentionDays;
+
+    @Value("${cart.purge.batch.size}")
+    private int batchSize;
+
+    @Value("${cart.purge.batch.pause.ms}")
+    private long batchPauseMs;
+
+    @Value("${cart.purge.max.batches}")
+    private int maxBatches;
+
+    /**
+     * Delete carts that have not been touched within the retention period
+     */
+    @Scheduled(cron = "${cart.purge.cron}")
+    public void purgeAbandoned() {
+        Timestamp cutoff = Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays));
+        int total = 0;
+
+        for (int batch = 0; batch < maxBatches; batch++) {
+            int deleted;
+            try {
+                deleted = deleteBatch(cutoff);
+            } catch (RuntimeException e) {
+                logger.error("Abandoned cart purge stopped after {} carts", total, e);
+                break;
+            }
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+            try {
+                Thread.sleep(batchPauseMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
+        logger.info("Purged {} abandoned carts older than {}", total, cutoff);
+    }
+
+    /**
+     * Lock up to batchSize stale carts, then delete their items and the carts themselves
+     */
+    private int deleteBatch(Timestamp cutoff) {
+        return transactionTemplate.execute(status -> {
+            List<Long> ids = jdbcTemplate.queryForList(SELECT_STALE_SQL, Long.class, cutoff, batchSize);
+            if (ids.isEmpty()) {
+                return 0;
+            }
+            Map<String, Object> params = Map.of("ids", ids);
+            namedParameterJdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (:ids)", params);
+            namedParameterJdbcTemplate.update("DELETE FROM carts WHERE id IN (:ids)", params);
+            return ids.size();
+        });
+    }
+}
@@ -1,34 +1,64 @@
 package com.pizza.ordering.service;
 
 import com.pizza.ordering.dto.CartResponse;
+import com.pizza.ordering.dto.CartUpdateRequest;
 import com.pizza.ordering.dto.PizzaResponse;
 import com.pizza.ordering.entity.Cart;
 import com.pizza.ordering.entity.CartItem;
-import com.pizza.ordering.entity.Pizza;
 import com.pizza.ordering.entity.User;
 import com.pizza.ordering.exception.BadRequestException;
+import com.pizza.ordering.exception.ConflictException;
 import com.pizza.ordering.exception.ResourceNotFoundException;
 import com.pizza.ordering.repository.CartItemRepository;
 import com.pizza.ordering.repository.CartRepository;
-import com.pizza.ordering.repository.PizzaRepository;
 import com.pizza.ordering.repository.UserRepository;
+import com.pizza.ordering.util.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.util.stream.Collectors;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Service for cart operations
+ * With cart.store.mode=write-behind, carts are read and mutated in memory and flushed to the database in the background.
  */
 @Service
 public class CartService {
 
     private static final Logger logger = LoggerFactory.getLogger(CartService.class);
 
+    private static final String SET_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, pizza_id, quantity, version) VALUES (?, ?, ?, 0) " +
+            "ON DUPLICATE KEY UPDATE quantity = VALUES(quantity), version = version + 1";
+
+    private static final String ADD_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, pizza_id, quantity, version) VALUES (?, ?, ?, 0) " +
+            "ON DUPLICATE KEY UPDATE quantity = quantity + VALUES(quantity), version = version + 1";
+
     @Autowired
     private CartRepository cartRepository;
 
@@ -36,85 +66,85 @@ public class CartService {
     private CartItemRepository cartItemRepository;
 
     @Autowired
-    private PizzaRepository pizzaRepository;
+    private UserRepository userRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private PizzaService pizzaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired(required = false)
+    private WriteBehindCartStore cartStore;
+
+    @Value("${cart.retry.max.attempts}")
+    private int retryMaxAttempts;
+
+    @Value("${cart.retry.backoff.ms}")
+    private long retryBackoffMs;
+
+    private TransactionTemplate cartTransaction;
+
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        cartTransaction = new TransactionTemplate(transactionManager);
+    }
 
     /**
-     * Get or create cart for user
+     * Get cart for user
+     * Reading never creates a cart row; users without one get an empty cart with a null ID.
      */
-    @Transactional
+    @Transactional(readOnly = true)
     public CartResponse getCart(Long userId) {
         logger.debug("Fetching cart for user: {}", userId);
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
-
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    Cart newCart = new Cart();
-                    newCart.setUser(user);
-                    return cartRepository.save(newCart);
-                });
+        if (cartStore != null) {
+            return buildCartResponse(cartStore.get(userId));
+        }
 
-        return buildCartResponse(cart);
+        return cartRepository.findWithItemsByUserId(userId)
+                .map(this::buildCartResponse)
+                .orElseGet(() -> new CartResponse(null, new ArrayList<>(), 0, BigDecimal.ZERO));
     }
 
     /**
      * Add pizza to cart
+     * One upsert statement, one increment of the cart totals and one fetch-joined read;
+     * the cart row is only created on the first add.
      */
-    @Transactional
     public CartResponse addToCart(Long userId, Long pizzaId) {
         logger.info("Adding pizza {} to cart for user {}", pizzaId, userId);
 
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
-
-        Pizza pizza = pizzaRepository.findById(pizzaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Pizza", "id", pizzaId));
+        requireAvailablePizza(pizzaId);
 
-        // Check if pizza is available
-        if (!pizza.getAvailable()) {
-            throw new BadRequestException("Pizza is currently unavailable");
+        if (cartStore != null) {
+            return buildCartResponse(cartStore.add(userId, pizzaId, 1));
         }
 
-        // Get or create cart
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    Cart newCart = new Cart();
-                    newCart.setUser(user);
-                    return cartRepository.save(newCart);
-                });
-
-        // Check if item already exists in cart
-        CartItem existingItem = cartItemRepository.findByCartIdAndPizzaId(cart.getId(), pizzaId)
-                .orElse(null);
+        return withRetry(() -> {
+            if (cartItemRepository.upsertQuantity(userId, pizzaId, 1) == 0) {
+                // No cart row yet for this user; a concurrent first add may create it too and force a retry
+                createCart(userId);
+                cartItemRepository.upsertQuantity(userId, pizzaId, 1);
+            }
+            cartRepository.addToTotals(userId, pizzaId, 1);
 
-        if (existingItem != null) {
-            // Increment quantity
-            existingItem.setQuantity(existingItem.getQuantity() + 1);
-            cartItemRepository.save(existingItem);
-            logger.info("Incremented quantity for pizza {} in cart", pizzaId);
-        } else {
-            // Add new item
-            CartItem newItem = new CartItem();
-            newItem.setCart(cart);
-            newItem.setPizza(pizza);
-            newItem.setQuantity(1);
-            cartItemRepository.save(newItem);
-            logger.info("Added new pizza {} to cart", pizzaId);
-        }
-
-        // Refresh cart
-        cart = cartRepository.findById(cart.getId()).get();
-        return buildCartResponse(cart);
+            return buildCartResponse(loadCart(userId));
+        });
     }
 
     /**
      * Update cart item quantity
      */
-    @Transactional
     public CartResponse updateCartItem(Long userId, Long pizzaId, Integer quantity) {
         logger.info("Updating cart item for user {}, pizza {}, quantity {}", userId, pizzaId, quantity);
 
@@ -122,38 +152,92 @@ public class CartService {
             throw new BadRequestException("Quantity must be at least 1");
         }
 
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
-
-        CartItem cartItem = cartItemRepository.findByCartIdAndPizzaId(cart.getId(), pizzaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
+        if (cartStore != null) {
+            return buildCartResponse(cartStore.set(userId, pizzaId, quantity));
+        }
 
-        cartItem.setQuantity(quantity);
-        cartItemRepository.save(cartItem);
+        return withRetry(() -> {
+            if (cartItemRepository.updateQuantity(userId, pizzaId, quantity) == 0) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            cartRepository.recalculateTotalsByUserId(userId);
 
-        // Refresh cart
-        cart = cartRepository.findById(cart.getId()).get();
-        return buildCartResponse(cart);
+            return buildCartResponse(loadCart(userId));
+        });
     }
 
     /**
      * Remove item from cart
      */
-    @Transactional
     public CartResponse removeFromCart(Long userId, Long pizzaId) {
         logger.info("Removing pizza {} from cart for user {}", pizzaId, userId);
 
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
+        if (cartStore != null) {
+            return buildCartResponse(cartStore.remove(userId, pizzaId));
+        }
+
+        return withRetry(() -> {
+            if (cartItemRepository.deleteItem(userId, pizzaId) == 0) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            cartRepository.recalculateTotalsByUserId(userId);
+
+            return buildCartResponse(loadCart(userId));
+        });
+    }
+
+    /**
+     * Apply ordered SET/ADD/REMOVE operations in one transaction
+     * Operations are folded per pizza first, then written with one statement per kind of change.
+     * The batch only commits if no other write reached the cart since it was read; otherwise it is retried.
+     */
+    public CartResponse updateCart(Long userId, List<CartUpdateRequest.CartOperation> operations) {
+        logger.info("Applying {} cart operations for user {}", operations.size(), userId);
 
-        CartItem cartItem = cartItemRepository.findByCartIdAndPizzaId(cart.getId(), pizzaId)
-                .orElseThrow(() -> new ResourceNotFoundException("Cart item not found"));
+        Map<Long, LineChange> changes = foldOperations(operations);
 
-        cartItemRepository.delete(cartItem);
+        if (cartStore != null) {
+            return buildCartResponse(cartStore.mutate(userId, items -> changes.forEach(
+                    (pizzaId, change) -> change.applyTo(items, pizzaId))));
+        }
+
+        return withRetry(() -> applyChanges(userId, changes));
+    }
+
+    private CartResponse applyChanges(Long userId, Map<Long, LineChange> changes) {
+        Cart cart = cartRepository.findByUserId(userId)
+                .orElseGet(() -> createCart(userId));
+        Long cartId = cart.getId();
+
+        List<Long> removals = new ArrayList<>();
+        List<Object[]> sets = new ArrayList<>();
+        List<Object[]> adds = new ArrayList<>();
+        changes.forEach((pizzaId, change) -> {
+            if (change.absolute() && change.quantity() == 0) {
+                removals.add(pizzaId);
+            } else if (change.absolute()) {
+                sets.add(new Object[]{cartId, pizzaId, change.quantity()});
+            } else {
+                adds.add(new Object[]{cartId, pizzaId, change.quantity()});
+            }
+        });
+
+        if (!removals.isEmpty()) {
+            cartItemRepository.deleteItems(cartId, removals);
+        }
+        if (!sets.isEmpty()) {
+            jdbcTemplate.batchUpdate(SET_ITEM_SQL, sets);
+        }
+        if (!adds.isEmpty()) {
+            jdbcTemplate.batchUpdate(ADD_ITEM_SQL, adds);
+        }
+        if (cartRepository.recalculateTotalsIfVersion(cartId, cart.getVersion()) == 0) {
+            throw new ObjectOptimisticLockingFailureException(Cart.class, cartId);
+        }
 
-        // Refresh cart
-        cart = cartRepository.findById(cart.getId()).get();
-        return buildCartResponse(cart);
+        // JDBC writes bypass the persistence context, so drop anything it holds before reading back
+        entityManager.clear();
+        return buildCartResponse(loadCart(userId));
     }
 
     /**
@@ -163,37 +247,225 @@ public class CartService {
     public void clearCart(Long userId) {
         logger.info("Clearing cart for user {}", userId);
 
-        Cart cart = cartRepository.findByUserId(userId)
+        if (cartStore != null) {
+            clearStoredCart(userId);
+            return;
+        }
+
+        // Carts are no longer created on read, so a user may have nothing to clear
+        cartRepository.findIdByUserId(userId).ifPresent(cartId -> {
+            cartItemRepository.deleteByCartId(cartId);
+            cartRepository.recalculateTotals(List.of(cartId));
+        });
+    }
+
+    /**
+     * Retry and conflict counts, for monitoring
+     */
+    public Map<String, Long> getConcurrencyStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("retries", retries.sum());
+        stats.put("conflicts", conflicts.sum());
+        return stats;
+    }
+
+    /**
+     * Run a cart write in its own transaction, retrying a bounded number of times with jittered backoff
+     * when it loses a race: a version check, a lock wait/deadlock, or a duplicate cart or line insert.
+     * Other integrity violations (e.g. a pizza deleted since it was checked) are not races and propagate.
+     */
+    private <T> T withRetry(Supplier<T> work) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return cartTransaction.execute(status -> work.get());
+            } catch (ConcurrencyFailureException | DuplicateKeyException e) {
+                if (attempt >= retryMaxAttempts) {
+                    conflicts.increment();
+                    logger.warn("Cart write still conflicting after {} attempts: {}", attempt, e.getMessage());
+                    throw new ConflictException("Cart was modified concurrently, please retry");
+                }
+                retries.increment();
+                logger.debug("Cart write conflict on attempt {}, retrying: {}", attempt, e.getMessage());
+                backoff(attempt);
+            }
+        }
+    }
+
+    /**
+     * Sleep a random time up to retryBackoffMs * 2^(attempt-1), so racing requests spread out
+     */
+    private void backoff(int attempt) {
+        long ceiling = retryBackoffMs << Math.min(attempt - 1, 10);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Cart was modified concurrently, please retry");
+        }
+    }
+
+    /**
+     * Fold operations into one net change per pizza, in order of first appearance.
+     * SET on a missing line inserts it; REMOVE on a missing line is a no-op.
+     */
+    private Map<Long, LineChange> foldOperations(List<CartUpdateRequest.CartOperation> operations) {
+        Map<Long, LineChange> changes = new LinkedHashMap<>();
+        for (CartUpdateRequest.CartOperation operation : operations) {
+            Long pizzaId = operation.getPizzaId();
+            switch (operation.getType()) {
+                case SET -> {
+                    if (operation.getQuantity() == null) {
+                        throw new BadRequestException("Quantity is required for SET");
+                    }
+                    requireAvailablePizza(pizzaId);
+                    changes.put(pizzaId, new LineChange(true, operation.getQuantity()));
+                }
+                case ADD -> {
+                    requireAvailablePizza(pizzaId);
+                    int quantity = operation.getQuantity() != null ? operation.getQuantity() : 1;
+                    LineChange current = changes.get(pizzaId);
+                    changes.put(pizzaId, current != null
+                            ? new LineChange(current.absolute(), current.quantity() + quantity)
+                            : new LineChange(false, quantity));
+                }
+                case REMOVE -> changes.put(pizzaId, new LineChange(true, 0));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Load cart with items and pizzas in one query
+     */
+    private Cart loadCart(Long userId) {
+        return cartRepository.findWithItemsByUserId(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("Cart not found for user"));
+    }
+
+    /**
+     * Create an empty cart for the user
+     */
+    private Cart createCart(Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+
+        Cart cart = new Cart();
+        cart.setUser(user);
+        return cartRepository.save(cart);
+    }
+
+    /**
+     * Write any buffered cart changes for the user so the database copy is current
+     */
+    public void flushCart(Long userId) {
+        if (cartStore != null) {
+            cartStore.flush(userId);
+        }
+    }
 
-        cartItemRepository.deleteByCartId(cart.getId());
+    /**
+     * Clear the database rows now and the in-memory cart once the surrounding transaction commits,
+     * so a rolled-back order leaves the cart intact
+     */
+    private void clearStoredCart(Long userId) {
+        cartRepository.findByUserId(userId)
+                .ifPresent(cart -> {
+                    cartItemRepository.deleteByCartId(cart.getId());
+                    cartRepository.recalculateTotals(List.of(cart.getId()));
+                });
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cartStore.clear(userId);
+                }
+            });
+        } else {
+            cartStore.clear(userId);
+        }
+    }
+
+    /**
+     * Check a pizza exists and is available, using the menu snapshot
+     */
+    private void requireAvailablePizza(Long pizzaId) {
+        PizzaResponse pizza = pizzaService.getSnapshot().getPizza(pizzaId);
+        if (pizza == null) {
+            throw new ResourceNotFoundException("Pizza", "id", pizzaId);
+        }
+        if (!Boolean.TRUE.equals(pizza.getAvailable())) {
+            throw new BadRequestException("Pizza is currently unavailable");
+        }
+    }
+
+    /**
+     * Net change to one cart line: an absolute quantity (0 removes the line) or a quantity to add
+     */
+    private record LineChange(boolean absolute, int quantity) {
+
+        void applyTo(Map<Long, Integer> items, Long pizzaId) {
+            if (absolute && quantity == 0) {
+                items.remove(pizzaId);
+            } else if (absolute) {
+                items.put(pizzaId, quantity);
+            } else {
+                items.merge(pizzaId, quantity, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Build cart response DTO from in-memory contents, with pizza data from the menu snapshot.
+     * Item IDs are not tracked in memory and are returned as null.
+     */
+    private CartResponse buildCartResponse(WriteBehindCartStore.CartContents contents) {
+        MenuSnapshot menu = pizzaService.getSnapshot();
+        List<CartResponse.CartItemResponse> items = new ArrayList<>();
+        int totalItems = 0;
+        long totalCents = 0;
+
+        for (Map.Entry<Long, Integer> entry : contents.items().entrySet()) {
+            PizzaResponse pizza = menu.getPizza(entry.getKey());
+            if (pizza == null) {
+                continue; // deleted from the menu; dropped at the next flush
+            }
+            long subtotalCents = entry.getValue() * Money.toCents(pizza.getPrice());
+            items.add(new CartResponse.CartItemResponse(null, pizza, entry.getValue(), Money.fromCents(subtotalCents)));
+            totalItems += entry.getValue();
+            totalCents += subtotalCents;
+        }
+
+        return new CartResponse(contents.cartId(), items, totalItems, Money.fromCents(totalCents));
     }
 
     /**
      * Build cart response DTO
+     * Totals come from the cart's running totals rather than being re-summed from the items.
      */
     private CartResponse buildCartResponse(Cart cart) {
-        var items = cart.getCartItems().stream()
-                .map(item -> {
-                    BigDecimal subtotal = item.getPizza().getPrice()
-                            .multiply(BigDecimal.valueOf(item.getQuantity()));
-                    return new CartResponse.CartItemResponse(
-                            item.getId(),
-                            PizzaResponse.fromEntity(item.getPizza()),
-                            item.getQuantity(),
-                            subtotal);
-                })
-                .collect(Collectors.toList());
-
-        int totalItems = cart.getCartItems().stream()
-                .mapToInt(CartItem::getQuantity)
-                .sum();
-
-        BigDecimal totalPrice = cart.getCartItems().stream()
-                .map(item -> item.getPizza().getPrice()
-                        .multiply(BigDecimal.valueOf(item.getQuantity())))
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        return new CartResponse(cart.getId(), items, totalItems, totalPrice);
+        List<CartResponse.CartItemResponse> items = new ArrayList<>(cart.getCartItems().size());
+        for (CartItem item : cart.getCartItems()) {
+            long subtotalCents = item.getQuantity() * Money.toCents(item.getPizza().getPrice());
+            items.add(new CartResponse.CartItemResponse(
+                    item.getId(),
+                    PizzaResponse.fromEntity(item.getPizza()),
+                    item.getQuantity(),
+                    Money.fromCents(subtotalCents)));
+        }
+
+        return new CartResponse(cart.getId(), items, cart.getTotalItems(), Money.fromCents(cart.getTotalCents()));
+    }
+
+    /**
+     * Fill in running totals for carts that predate them
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillTotals() {
+        int updated = cartRepository.backfillTotals();
+        if (updated > 0) {
+            logger.info("Backfilled totals for {} carts", updated);
+        }
     }
 }
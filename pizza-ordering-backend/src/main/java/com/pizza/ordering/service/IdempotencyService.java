@@ -0,0 +1,252 @@
+package com.pizza.ordering.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pizza.ordering.entity.IdempotencyRecord;
+import com.pizza.ordering.exception.BadRequestException;
+import com.pizza.ordering.exception.ConflictException;
+import com.pizza.ordering.repository.IdempotencyRecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Service for replaying requests sent with an Idempotency-Key header.
+ * The first request with a key claims it with a short lease, runs, and stores its response; repeats of
+ * the same request get the stored response back without touching the order tables or the payment gateway.
+ * Completed keys are served from a size-bounded in-memory cache in front of the idempotency_keys table.
+ * Failed requests release their key so the client can retry them.
+ */
+@Service
+public class IdempotencyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${idempotency.ttl.hours}")
+    private long ttlHours;
+
+    @Value("${idempotency.lease.seconds}")
+    private long leaseSeconds;
+
+    @Value("${idempotency.cache.max.size}")
+    private int cacheMaxSize;
+
+    private TransactionTemplate keyTransaction;
+
+    private final ConcurrentHashMap<String, CachedResponse> cache = new ConcurrentHashMap<>();
+
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        // Key bookkeeping commits on its own, independent of the work it guards
+        keyTransaction = new TransactionTemplate(transactionManager);
+        keyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Run action once per (operation, user, key); a repeat with the same request returns the stored response.
+     * Without a key the action simply runs.
+     *
+     * @param request the request parameters; reusing a key with different parameters is rejected
+     */
+    public <T> T execute(String key, Long userId, String operation, String request, Class<T> responseType,
+            Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new BadRequestException("Idempotency-Key must be 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String id = digest(operation + ":" + userId + ":" + key);
+        String fingerprint = digest(request);
+
+        CachedResponse cached = cache.get(id);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            cacheHits.increment();
+            return replay(cached.fingerprint(), fingerprint, cached.response(), responseType);
+        }
+
+        Optional<IdempotencyRecord> stored = claim(id, fingerprint);
+        if (stored.isPresent()) {
+            IdempotencyRecord record = stored.get();
+            remember(record);
+            return replay(record.getFingerprint(), fingerprint, record.getResponse(), responseType);
+        }
+
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            keyTransaction.executeWithoutResult(status -> idempotencyRecordRepository.deleteById(id));
+            throw e;
+        }
+
+        String response = write(result);
+        LocalDateTime expiresAt = LocalDateTime.now().plusHours(ttlHours);
+        keyTransaction.executeWithoutResult(status -> idempotencyRecordRepository.complete(id, response, expiresAt));
+        remember(new IdempotencyRecord(id, fingerprint, true, response, expiresAt));
+        return result;
+    }
+
+    /**
+     * Cache and replay statistics for monitoring
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("cacheSize", cache.size());
+        stats.put("cacheHits", cacheHits.sum());
+        stats.put("replays", replays.sum());
+        stats.put("conflicts", conflicts.sum());
+        return stats;
+    }
+
+    /**
+     * Delete keys past their lease or replay window
+     */
+    @Scheduled(cron = "${idempotency.purge.cron}")
+    @Transactional
+    public void purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = idempotencyRecordRepository.deleteExpired(now);
+        long nowMillis = System.currentTimeMillis();
+        cache.values().removeIf(cached -> cached.isExpired(nowMillis));
+        logger.info("Purged {} expired idempotency keys", deleted);
+    }
+
+    /**
+     * Claim the key for this request; returns the stored record if it has already completed
+     */
+    private Optional<IdempotencyRecord> claim(String id, String fingerprint) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseEnd = now.plusSeconds(leaseSeconds);
+        try {
+            return keyTransaction.execute(status -> {
+                IdempotencyRecord record = idempotencyRecordRepository.findById(id).orElse(null);
+                if (record == null) {
+                    idempotencyRecordRepository.saveAndFlush(new IdempotencyRecord(id, fingerprint, false, null, leaseEnd));
+                    return Optional.empty();
+                }
+                if (record.getExpiresAt().isAfter(now)) {
+                    if (Boolean.TRUE.equals(record.getCompleted())) {
+                        return Optional.of(record);
+                    }
+                    throw inProgress();
+                }
+                // Expired: a finished key past its window, or a lease left behind by a crashed request
+                if (idempotencyRecordRepository.restartExpired(id, fingerprint, leaseEnd, now) == 0) {
+                    throw inProgress();
+                }
+                return Optional.empty();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request with the same key inserted first
+            throw inProgress();
+        }
+    }
+
+    private ConflictException inProgress() {
+        conflicts.increment();
+        return new ConflictException("A request with this Idempotency-Key is still being processed");
+    }
+
+    private <T> T replay(String storedFingerprint, String fingerprint, String response, Class<T> responseType) {
+        if (!storedFingerprint.equals(fingerprint)) {
+            throw new BadRequestException("Idempotency-Key has already been used for a different request");
+        }
+        replays.increment();
+        try {
+            return objectMapper.readValue(response, responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", e);
+        }
+    }
+
+    private String write(Object result) {
+        try {
+            return objectMapper.writeValueAsString(result);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response cannot be stored for replay", e);
+        }
+    }
+
+    private void remember(IdempotencyRecord record) {
+        if (cache.size() >= cacheMaxSize) {
+            makeRoom();
+        }
+        long expiresAtMillis = record.getExpiresAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        cache.put(record.getId(), new CachedResponse(record.getFingerprint(), record.getResponse(), expiresAtMillis));
+    }
+
+    /**
+     * Drop expired entries; if the cache is still full, drop an arbitrary tenth of it
+     */
+    private void makeRoom() {
+        long now = System.currentTimeMillis();
+        cache.values().removeIf(cached -> cached.isExpired(now));
+
+        int toEvict = cache.size() - cacheMaxSize + Math.max(1, cacheMaxSize / 10);
+        Iterator<String> keys = cache.keySet().iterator();
+        while (toEvict-- > 0 && keys.hasNext()) {
+            keys.next();
+            keys.remove();
+        }
+    }
+
+    private static String digest(String value) {
+        MessageDigest md = SHA_256.get();
+        md.reset();
+        return HexFormat.of().formatHex(md.digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private record CachedResponse(String fingerprint, String response, long expiresAtMillis) {
+        boolean isExpired(long nowMillis) {
+            return expiresAtMillis <= nowMillis;
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.pizza.ordering.service;
+
+import com.pizza.ordering.exception.BadRequestException;
+import com.pizza.ordering.exception.ResourceNotFoundException;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Service for storing pizza images on local disk.
+ * Uploads are streamed to a temp file while hashed, then moved to a content-addressed name, so a
+ * stored file never changes and can be cached forever. A JPEG thumbnail is rendered once at upload
+ * time so menu cards never download the full-size image.
+ */
+@Service
+public class ImageStorageService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageStorageService.class);
+
+    private static final Pattern FILE_NAME = Pattern.compile("[0-9a-f]{32}(-w\\d+)?\\.(jpg|png|gif|bmp)");
+
+    private static final Map<String, String> EXTENSIONS = Map.of(
+            "jpeg", "jpg",
+            "png", "png",
+            "gif", "gif",
+            "bmp", "bmp");
+
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "bmp", "image/bmp");
+
+    @Value("${image.storage.dir}")
+    private String storageDir;
+
+    @Value("${image.thumbnail.width}")
+    private int thumbnailWidth;
+
+    @Value("${image.thumbnail.quality}")
+    private float thumbnailQuality;
+
+    @Value("${image.max.pixels}")
+    private long maxPixels;
+
+    private Path root;
+
+    @PostConstruct
+    public void init() throws IOException {
+        root = Paths.get(storageDir).toAbsolutePath().normalize();
+        Files.createDirectories(root);
+        logger.info("Storing images in {}", root);
+    }
+
+    /**
+     * Store an uploaded image and its thumbnail; returns the stored file names
+     */
+    public StoredImage store(MultipartFile file) {
+        if (file.isEmpty()) {
+            throw new BadRequestException("Image file is empty");
+        }
+
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(root, "upload-", ".tmp");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest()).substring(0, 32);
+
+            DecodedImage decoded = decode(temp);
+            String imageName = hash + "." + decoded.extension;
+            String thumbnailName = hash + "-w" + thumbnailWidth + ".jpg";
+
+            Path imagePath = root.resolve(imageName);
+            if (Files.exists(imagePath)) {
+                Files.delete(temp);
+            } else {
+                Files.move(temp, imagePath, StandardCopyOption.ATOMIC_MOVE);
+            }
+            temp = null;
+
+            Path thumbnailPath = root.resolve(thumbnailName);
+            if (!Files.exists(thumbnailPath)) {
+                writeThumbnail(decoded.image, thumbnailPath);
+            }
+
+            logger.info("Stored image {} ({}x{}) with thumbnail {}",
+                    imageName, decoded.image.getWidth(), decoded.image.getHeight(), thumbnailName);
+            return new StoredImage(imageName, thumbnailName);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store image", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException e) {
+                    logger.warn("Could not delete temp upload {}", temp);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resolve a stored file by name; only names this service generates are accepted
+     */
+    public Path resolve(String name) {
+        if (!FILE_NAME.matcher(name).matches()) {
+            throw new ResourceNotFoundException("Image", "name", name);
+        }
+        Path path = root.resolve(name);
+        if (!Files.isRegularFile(path)) {
+            throw new ResourceNotFoundException("Image", "name", name);
+        }
+        return path;
+    }
+
+    /**
+     * Content type for a stored file name
+     */
+    public String contentType(String name) {
+        return CONTENT_TYPES.get(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    /**
+     * Decode the upload, checking dimensions from the header first so oversized images are never decompressed
+     */
+    private DecodedImage decode(Path path) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(path.toFile())) {
+            Iterator<ImageReader> readers = input == null ? null : ImageIO.getImageReaders(input);
+            if (readers == null || !readers.hasNext()) {
+                throw new BadRequestException("Unsupported image format");
+            }
+            ImageReader reader = readers.next();
+            try {
+                String extension = EXTENSIONS.get(reader.getFormatName().toLowerCase(Locale.ROOT));
+                if (extension == null) {
+                    throw new BadRequestException("Unsupported image format: " + reader.getFormatName());
+                }
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    throw new BadRequestException("Image is too large: " + reader.getWidth(0) + "x" + reader.getHeight(0));
+                }
+                return new DecodedImage(reader.read(0), extension);
+            } finally {
+                reader.dispose();
+            }
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read image: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Scale to the thumbnail width (never upscaling) and write as JPEG
+     */
+    private void writeThumbnail(BufferedImage source, Path target) throws IOException {
+        int width = Math.min(thumbnailWidth, source.getWidth());
+        int height = Math.max(1, Math.round(source.getHeight() * (width / (float) source.getWidth())));
+
+        BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = thumbnail.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.drawImage(source, 0, 0, width, height, Color.WHITE, null);
+        } finally {
+            graphics.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(thumbnailQuality);
+
+        Path temp = Files.createTempFile(root, "thumb-", ".tmp");
+        try {
+            try (ImageOutputStream output = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(output);
+                writer.write(null, new IIOImage(thumbnail, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private record DecodedImage(BufferedImage image, String extension) {
+    }
+
+    /**
+     * File names of a stored image and its thumbnail
+     */
+    public record StoredImage(String imageName, String thumbnailName) {
+    }
+}
@@ -0,0 +1,63 @@
+package com.pizza.ordering.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Immutable, bounded log of which pizza changed at which menu version.
+ * Entries cover the contiguous versions (baseVersion, latestVersion]; a client that last saw any
+ * version in [baseVersion, latestVersion] can be sent just the pizzas changed since then.
+ */
+final class MenuChangeLog {
+
+    private final long baseVersion;
+    private final long[] versions;
+    private final long[] pizzaIds;
+
+    private MenuChangeLog(long baseVersion, long[] versions, long[] pizzaIds) {
+        this.baseVersion = baseVersion;
+        this.versions = versions;
+        this.pizzaIds = pizzaIds;
+    }
+
+    /**
+     * Empty log starting at version; older versions can no longer be served as deltas
+     */
+    static MenuChangeLog reset(long version) {
+        return new MenuChangeLog(version, new long[0], new long[0]);
+    }
+
+    /**
+     * Return a log with one more entry, dropping the oldest entries beyond maxEntries
+     */
+    MenuChangeLog append(long version, long pizzaId, int maxEntries) {
+        int keep = Math.min(versions.length, maxEntries - 1);
+        int from = versions.length - keep;
+
+        long[] newVersions = Arrays.copyOfRange(versions, from, versions.length + 1);
+        long[] newIds = Arrays.copyOfRange(pizzaIds, from, pizzaIds.length + 1);
+        newVersions[keep] = version;
+        newIds[keep] = pizzaId;
+
+        long newBase = from == 0 ? baseVersion : versions[from - 1];
+        return new MenuChangeLog(newBase, newVersions, newIds);
+    }
+
+    /**
+     * IDs of pizzas changed after since, oldest change first; null if since is outside the retained range
+     */
+    Set<Long> changedSince(long since) {
+        long latest = versions.length == 0 ? baseVersion : versions[versions.length - 1];
+        if (since < baseVersion || since > latest) {
+            return null;
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (int i = 0; i < versions.length; i++) {
+            if (versions[i] > since) {
+                ids.add(pizzaIds[i]);
+            }
+        }
+        return ids;
+    }
+}
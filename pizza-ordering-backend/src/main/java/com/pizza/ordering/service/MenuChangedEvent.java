@@ -0,0 +1,20 @@
+package com.pizza.ordering.service;
+
+/**
+ * Published when the pizza menu is modified; listeners run once the change has committed
+ */
+public class MenuChangedEvent {
+
+    private final Long pizzaId;
+
+    public MenuChangedEvent(Long pizzaId) {
+        this.pizzaId = pizzaId;
+    }
+
+    /**
+     * ID of the changed pizza; null when many pizzas may have changed
+     */
+    public Long getPizzaId() {
+        return pizzaId;
+    }
+}
@@ -0,0 +1,109 @@
+package com.pizza.ordering.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Ready-to-write response body: UTF-8 JSON and its gzip variant, each with its own strong ETag.
+ * Built once per menu change so the hot path only copies bytes.
+ */
+public final class MenuPayload {
+
+    private final byte[] json;
+    private final byte[] gzip;
+    private final String etag;
+    private final String gzipEtag;
+
+    private MenuPayload(byte[] json, byte[] gzip, String hash) {
+        this.json = json;
+        this.gzip = gzip;
+        this.etag = "\"" + hash + "\"";
+        // A strong validator identifies one byte sequence, so the gzip coding gets a tag of its own
+        this.gzipEtag = "\"" + hash + "-gz\"";
+    }
+
+    /**
+     * Serialize body and precompute variants
+     */
+    public static MenuPayload of(Object body, ObjectMapper objectMapper) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new MenuPayload(json, gzip(json), sha256Hex(json).substring(0, 32));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize menu", e);
+        }
+    }
+
+    /**
+     * Uncompressed JSON bytes; callers must not modify the array
+     */
+    public byte[] getJson() {
+        return json;
+    }
+
+    /**
+     * Gzip-compressed JSON bytes; callers must not modify the array
+     */
+    public byte[] getGzip() {
+        return gzip;
+    }
+
+    /**
+     * Strong ETag of the uncompressed JSON, already quoted
+     */
+    public String getEtag() {
+        return etag;
+    }
+
+    /**
+     * Strong ETag of the gzip variant, already quoted
+     */
+    public String getGzipEtag() {
+        return gzipEtag;
+    }
+
+    /**
+     * Check an If-None-Match header value against this payload's ETags (either content coding)
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2); // If-None-Match uses weak comparison
+            }
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipEtag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gzipOut = new GZIPOutputStream(out)) {
+            gzipOut.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256Hex(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
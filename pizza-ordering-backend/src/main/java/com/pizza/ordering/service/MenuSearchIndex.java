@@ -0,0 +1,222 @@
+package com.pizza.ordering.service;
+
+import com.pizza.ordering.dto.PizzaResponse;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable inverted index over pizza names and descriptions.
+ * Each token maps to a sorted array of pizza IDs; query tokens are matched as prefixes
+ * (so "pep" finds "pepperoni") and the per-token results are intersected.
+ * Updates return a new index that shares every untouched posting list with the old one.
+ */
+public final class MenuSearchIndex {
+
+    private static final long[] EMPTY = new long[0];
+
+    private final Map<String, long[]> postings;
+    private final String[] sortedTokens;
+    private final Map<Long, Set<String>> nameTokens;
+
+    private MenuSearchIndex(Map<String, long[]> postings, Map<Long, Set<String>> nameTokens) {
+        this.postings = postings;
+        this.sortedTokens = postings.keySet().toArray(new String[0]);
+        Arrays.sort(this.sortedTokens);
+        this.nameTokens = nameTokens;
+    }
+
+    /**
+     * Build index from scratch
+     */
+    public static MenuSearchIndex build(Collection<PizzaResponse> pizzas) {
+        Map<String, List<Long>> lists = new HashMap<>();
+        Map<Long, Set<String>> names = new HashMap<>();
+
+        for (PizzaResponse pizza : pizzas) {
+            for (String token : documentTokens(pizza)) {
+                lists.computeIfAbsent(token, t -> new ArrayList<>()).add(pizza.getId());
+            }
+            names.put(pizza.getId(), tokenize(pizza.getName()));
+        }
+
+        Map<String, long[]> postings = new HashMap<>();
+        lists.forEach((token, ids) -> {
+            long[] sorted = ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+            postings.put(token, sorted);
+        });
+        return new MenuSearchIndex(postings, names);
+    }
+
+    /**
+     * Return an index with removed replaced by added; either may be null
+     */
+    public MenuSearchIndex withDocument(PizzaResponse removed, PizzaResponse added) {
+        Map<String, long[]> postingsCopy = new HashMap<>(postings);
+        Map<Long, Set<String>> namesCopy = new HashMap<>(nameTokens);
+
+        if (removed != null) {
+            for (String token : documentTokens(removed)) {
+                long[] ids = remove(postingsCopy.getOrDefault(token, EMPTY), removed.getId());
+                if (ids.length == 0) {
+                    postingsCopy.remove(token);
+                } else {
+                    postingsCopy.put(token, ids);
+                }
+            }
+            namesCopy.remove(removed.getId());
+        }
+
+        if (added != null) {
+            for (String token : documentTokens(added)) {
+                postingsCopy.put(token, insert(postingsCopy.getOrDefault(token, EMPTY), added.getId()));
+            }
+            namesCopy.put(added.getId(), tokenize(added.getName()));
+        }
+
+        return new MenuSearchIndex(postingsCopy, namesCopy);
+    }
+
+    /**
+     * IDs matching every query token (as a prefix), in ascending order; null if the query has no tokens
+     */
+    public long[] search(String query) {
+        Set<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return null;
+        }
+
+        long[] result = null;
+        for (String token : queryTokens) {
+            long[] matches = prefixMatches(token);
+            result = result == null ? matches : intersect(result, matches);
+            if (result.length == 0) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Relevance score: number of query tokens that prefix-match a token of the pizza's name
+     */
+    public int nameScore(long pizzaId, String query) {
+        Set<String> names = nameTokens.getOrDefault(pizzaId, Set.of());
+        int score = 0;
+        for (String token : tokenize(query)) {
+            for (String name : names) {
+                if (name.startsWith(token)) {
+                    score++;
+                    break;
+                }
+            }
+        }
+        return score;
+    }
+
+    /**
+     * Lowercase alphanumeric tokens of text, in order of appearance
+     */
+    static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static Set<String> documentTokens(PizzaResponse pizza) {
+        Set<String> tokens = tokenize(pizza.getName());
+        tokens.addAll(tokenize(pizza.getDescription()));
+        return tokens;
+    }
+
+    /**
+     * Union of the posting lists of all tokens starting with prefix
+     */
+    private long[] prefixMatches(String prefix) {
+        int start = Arrays.binarySearch(sortedTokens, prefix);
+        if (start < 0) {
+            start = -start - 1;
+        }
+
+        long[] result = EMPTY;
+        for (int i = start; i < sortedTokens.length && sortedTokens[i].startsWith(prefix); i++) {
+            result = union(result, postings.get(sortedTokens[i]));
+        }
+        return result;
+    }
+
+    private static long[] intersect(long[] a, long[] b) {
+        long[] out = new long[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long[] union(long[] a, long[] b) {
+        if (a.length == 0) {
+            return b;
+        }
+        long[] out = new long[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                out[n++] = a[i++];
+            } else if (i == a.length || b[j] < a[i]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static long[] insert(long[] ids, long id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos >= 0) {
+            return ids;
+        }
+        pos = -pos - 1;
+        long[] out = new long[ids.length + 1];
+        System.arraycopy(ids, 0, out, 0, pos);
+        out[pos] = id;
+        System.arraycopy(ids, pos, out, pos + 1, ids.length - pos);
+        return out;
+    }
+
+    private static long[] remove(long[] ids, long id) {
+        int pos = Arrays.binarySearch(ids, id);
+        if (pos < 0) {
+            return ids;
+        }
+        long[] out = new long[ids.length - 1];
+        System.arraycopy(ids, 0, out, 0, pos);
+        System.arraycopy(ids, pos + 1, out, pos, ids.length - pos - 1);
+        return out;
+    }
+}
@@ -0,0 +1,233 @@
+package com.pizza.ordering.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pizza.ordering.dto.ApiResponse;
+import com.pizza.ordering.dto.MenuDeltaResponse;
+import com.pizza.ordering.dto.PizzaResponse;
+import com.pizza.ordering.entity.Pizza;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable snapshot of the menu, indexed by pizza ID, category and search tokens.
+ * Replaced as a whole whenever the menu changes, so readers never see a partial update.
+ * A version is a random lineage in the high bits and a change counter in the low 32 bits. Every full rebuild,
+ * on any node, starts a new lineage, so a version issued by another node or before a rebuild is never
+ * mistaken for a point in this snapshot's change log. Versions stay below 2^53 so JavaScript reads them exactly.
+ */
+public final class MenuSnapshot {
+
+    private static final int MAX_RETAINED_CHANGES = 512;
+
+    private static final int SEQUENCE_BITS = 32;
+    private static final long LINEAGE_BOUND = 1L << 21;
+
+    private final long version;
+    private final MenuChangeLog changeLog;
+    private final List<PizzaResponse> allPizzas;
+    private final List<PizzaResponse> availablePizzas;
+    private final Map<Long, PizzaResponse> byId;
+    private final Map<Pizza.PizzaCategory, List<PizzaResponse>> availableByCategory;
+    private final MenuSearchIndex searchIndex;
+    private final MenuPayload availablePayload;
+
+    private MenuSnapshot(long version, MenuChangeLog changeLog, List<PizzaResponse> allPizzas,
+            MenuSearchIndex searchIndex, ObjectMapper objectMapper) {
+        this.version = version;
+        this.changeLog = changeLog;
+        this.allPizzas = Collections.unmodifiableList(allPizzas);
+        this.availablePizzas = allPizzas.stream()
+                .filter(MenuSnapshot::isAvailable)
+                .collect(Collectors.toUnmodifiableList());
+
+        Map<Long, PizzaResponse> ids = new LinkedHashMap<>();
+        allPizzas.forEach(pizza -> ids.put(pizza.getId(), pizza));
+        this.byId = Collections.unmodifiableMap(ids);
+
+        Map<Pizza.PizzaCategory, List<PizzaResponse>> categories = new EnumMap<>(Pizza.PizzaCategory.class);
+        for (Pizza.PizzaCategory category : Pizza.PizzaCategory.values()) {
+            categories.put(category, availablePizzas.stream()
+                    .filter(pizza -> pizza.getCategory() == category)
+                    .collect(Collectors.toUnmodifiableList()));
+        }
+        this.availableByCategory = Collections.unmodifiableMap(categories);
+
+        this.searchIndex = searchIndex != null ? searchIndex : MenuSearchIndex.build(availablePizzas);
+        this.availablePayload = MenuPayload.of(ApiResponse.success(availablePizzas), objectMapper);
+    }
+
+    /**
+     * Build snapshot from entities in a new lineage (different from previous, if any),
+     * pre-serializing the public menu response. Deltas are only available from its first version onwards.
+     */
+    public static MenuSnapshot of(List<Pizza> pizzas, MenuSnapshot previous, ObjectMapper objectMapper) {
+        long lineage;
+        do {
+            lineage = ThreadLocalRandom.current().nextLong(1, LINEAGE_BOUND);
+        } while (previous != null && lineage == lineageOf(previous.version));
+        long version = lineage << SEQUENCE_BITS;
+
+        return new MenuSnapshot(version, MenuChangeLog.reset(version), pizzas.stream()
+                .map(PizzaResponse::fromEntity)
+                .sorted(Comparator.comparing(PizzaResponse::getId))
+                .collect(Collectors.toList()), null, objectMapper);
+    }
+
+    /**
+     * Return the next version of the snapshot with one pizza added, replaced or (when updated is null) removed.
+     * The search index is updated incrementally rather than rebuilt.
+     */
+    public MenuSnapshot withPizza(Long pizzaId, PizzaResponse updated, ObjectMapper objectMapper) {
+        PizzaResponse previous = byId.get(pizzaId);
+
+        List<PizzaResponse> pizzas = new ArrayList<>(allPizzas.size() + 1);
+        for (PizzaResponse pizza : allPizzas) {
+            if (!pizza.getId().equals(pizzaId)) {
+                pizzas.add(pizza);
+            }
+        }
+        if (updated != null) {
+            pizzas.add(updated);
+            pizzas.sort(Comparator.comparing(PizzaResponse::getId));
+        }
+
+        MenuSearchIndex index = searchIndex.withDocument(
+                previous != null && isAvailable(previous) ? previous : null,
+                updated != null && isAvailable(updated) ? updated : null);
+
+        long next = version + 1;
+        return new MenuSnapshot(next, changeLog.append(next, pizzaId, MAX_RETAINED_CHANGES), pizzas, index,
+                objectMapper);
+    }
+
+    /**
+     * Menu version; increases with every change within a lineage
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Available pizzas changed since a client's version, plus IDs of pizzas that were deleted or became
+     * unavailable; the full available menu when since comes from another lineage or is no longer covered
+     * by the change log
+     */
+    public MenuDeltaResponse deltaSince(long since) {
+        Set<Long> changedIds = lineageOf(since) == lineageOf(version) ? changeLog.changedSince(since) : null;
+        if (changedIds == null) {
+            return new MenuDeltaResponse(version, true, availablePizzas, List.of());
+        }
+
+        List<PizzaResponse> changed = new ArrayList<>();
+        List<Long> removed = new ArrayList<>();
+        for (Long id : changedIds) {
+            PizzaResponse pizza = byId.get(id);
+            if (pizza != null && isAvailable(pizza)) {
+                changed.add(pizza);
+            } else {
+                removed.add(id);
+            }
+        }
+        return new MenuDeltaResponse(version, false, changed, removed);
+    }
+
+    private static long lineageOf(long version) {
+        return version >>> SEQUENCE_BITS;
+    }
+
+    public List<PizzaResponse> getAllPizzas() {
+        return allPizzas;
+    }
+
+    public List<PizzaResponse> getAvailablePizzas() {
+        return availablePizzas;
+    }
+
+    public List<PizzaResponse> getAvailablePizzas(Pizza.PizzaCategory category) {
+        return availableByCategory.get(category);
+    }
+
+    /**
+     * Pre-serialized ApiResponse of the available pizzas
+     */
+    public MenuPayload getAvailablePayload() {
+        return availablePayload;
+    }
+
+    /**
+     * Get pizza by ID, available or not; null if unknown
+     */
+    public PizzaResponse getPizza(Long id) {
+        return byId.get(id);
+    }
+
+    /**
+     * Search available pizzas by text, category and price range; all criteria are optional
+     */
+    public List<PizzaResponse> search(String query, Pizza.PizzaCategory category, BigDecimal minPrice,
+            BigDecimal maxPrice, SearchSort sort) {
+        long[] matchedIds = searchIndex.search(query);
+
+        List<PizzaResponse> candidates;
+        if (matchedIds == null) {
+            candidates = category != null ? availableByCategory.get(category) : availablePizzas;
+        } else {
+            candidates = new ArrayList<>(matchedIds.length);
+            for (long id : matchedIds) {
+                candidates.add(byId.get(id));
+            }
+        }
+
+        List<PizzaResponse> results = new ArrayList<>(candidates.size());
+        for (PizzaResponse pizza : candidates) {
+            if (category != null && pizza.getCategory() != category) {
+                continue;
+            }
+            if (minPrice != null && pizza.getPrice().compareTo(minPrice) < 0) {
+                continue;
+            }
+            if (maxPrice != null && pizza.getPrice().compareTo(maxPrice) > 0) {
+                continue;
+            }
+            results.add(pizza);
+        }
+
+        results.sort(comparator(sort, query));
+        return results;
+    }
+
+    private Comparator<PizzaResponse> comparator(SearchSort sort, String query) {
+        Comparator<PizzaResponse> byName = Comparator.comparing(PizzaResponse::getName, String.CASE_INSENSITIVE_ORDER);
+        return switch (sort != null ? sort : SearchSort.RELEVANCE) {
+            case NAME -> byName;
+            case PRICE_ASC -> Comparator.comparing(PizzaResponse::getPrice).thenComparing(byName);
+            case PRICE_DESC -> Comparator.comparing(PizzaResponse::getPrice).reversed().thenComparing(byName);
+            case RELEVANCE -> Comparator.<PizzaResponse>comparingInt(
+                    pizza -> -searchIndex.nameScore(pizza.getId(), query)).thenComparing(byName);
+        };
+    }
+
+    private static boolean isAvailable(PizzaResponse pizza) {
+        return Boolean.TRUE.equals(pizza.getAvailable());
+    }
+
+    /**
+     * Sort orders for menu search
+     */
+    public enum SearchSort {
+        RELEVANCE,
+        NAME,
+        PRICE_ASC,
+        PRICE_DESC
+    }
+}
@@ -0,0 +1,403 @@
+package com.pizza.ordering.service;
+
+import com.pizza.ordering.dto.CartUpdateRequest;
+import com.pizza.ordering.dto.OrderIntakeResponse;
+import com.pizza.ordering.dto.OrderResponse;
+import com.pizza.ordering.dto.PizzaResponse;
+import com.pizza.ordering.entity.Cart;
+import com.pizza.ordering.entity.Order;
+import com.pizza.ordering.entity.OrderIntake;
+import com.pizza.ordering.exception.BadRequestException;
+import com.pizza.ordering.exception.ResourceNotFoundException;
+import com.pizza.ordering.exception.ServiceUnavailableException;
+import com.pizza.ordering.exception.UnauthorizedException;
+import com.pizza.ordering.repository.CartRepository;
+import com.pizza.ordering.repository.OrderIntakeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.Hibernate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Asynchronous order placement, enabled with order.intake.mode=async.
+ * POST /orders moves the cart's lines onto an intake row and empties the cart, then returns 202 with its
+ * reference, so later cart edits cannot change what was ordered.
+ * A fixed pool of workers drains a bounded in-memory queue in micro-batches, placing each batch of
+ * orders in one transaction, and notifies customers over WebSocket once their order has committed.
+ * A full queue is rejected with 503 so bursts queue at the client instead of piling onto MySQL.
+ * Intakes still QUEUED after a while without being in the local queue (left over beyond the startup
+ * re-queue, or whose failure could not be recorded) are periodically offered to the queue again.
+ */
+@Service
+@ConditionalOnProperty(name = "order.intake.mode", havingValue = "async")
+public class OrderIntakeService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderIntakeService.class);
+
+    private static final long RETRY_AFTER_SECONDS = 5;
+
+    @Autowired
+    private OrderIntakeRepository orderIntakeRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${order.intake.queue.capacity}")
+    private int queueCapacity;
+
+    @Value("${order.intake.workers}")
+    private int workerCount;
+
+    @Value("${order.intake.batch.size}")
+    private int batchSize;
+
+    @Value("${order.intake.requeue.after.seconds}")
+    private long requeueAfterSeconds;
+
+    private BlockingQueue<String> queue;
+
+    private ExecutorService workers;
+
+    private TransactionTemplate transactionTemplate;
+
+    private volatile boolean running;
+
+    private final LongAdder placedOrders = new LongAdder();
+    private final LongAdder failedOrders = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder requeued = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Re-queue intakes left over from a previous run and start the workers
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        List<String> pending = orderIntakeRepository.findIdsByStatus(OrderIntake.IntakeStatus.QUEUED,
+                PageRequest.of(0, queueCapacity));
+        queue.addAll(pending);
+        if (!pending.isEmpty()) {
+            logger.info("Re-queued {} pending order intakes", pending.size());
+        }
+
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerCount, runnable -> {
+            Thread thread = new Thread(runnable, "order-intake-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+        logger.info("Order intake enabled with {} workers, queue capacity {}, batch size {}",
+                workerCount, queueCapacity, batchSize);
+    }
+
+    /**
+     * Offer QUEUED intakes older than order.intake.requeue.after.seconds that are not waiting in the queue.
+     * One that is being placed right now may be offered twice; the row lock in place() makes that harmless.
+     */
+    @Scheduled(fixedDelayString = "${order.intake.requeue.interval}")
+    public void requeueStale() {
+        int room = queue.remainingCapacity();
+        if (!running || room == 0) {
+            return;
+        }
+        Set<String> waiting = new HashSet<>(queue);
+        List<String> stale = orderIntakeRepository.findIdsByStatusCreatedBefore(OrderIntake.IntakeStatus.QUEUED,
+                LocalDateTime.now().minusSeconds(requeueAfterSeconds), PageRequest.of(0, room));
+
+        int offered = 0;
+        for (String reference : stale) {
+            if (!waiting.contains(reference) && queue.offer(reference)) {
+                offered++;
+            }
+        }
+        if (offered > 0) {
+            requeued.add(offered);
+            logger.info("Re-queued {} stale order intakes", offered);
+        }
+    }
+
+    /**
+     * Stop the workers; queued intakes stay in the database and are picked up on the next start
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (workers != null) {
+            workers.shutdownNow();
+            workers.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Accept an order for the user's current cart
+     * Every submit with a non-empty cart gets its own intake, even while an earlier one is still queued;
+     * retried requests are deduplicated by their Idempotency-Key.
+     */
+    public OrderIntakeResponse submit(Long userId) {
+        cartService.flushCart(userId);
+
+        OrderIntake intake = transactionTemplate.execute(status -> {
+            // Holding the cart row serializes submits by the same user, so a cart is never captured twice
+            cartRepository.lockIdByUserId(userId);
+
+            Cart cart = cartRepository.findWithItemsByUserId(userId).orElse(null);
+            if (cart == null || cart.getCartItems().isEmpty()) {
+                throw new BadRequestException("Cannot place order with empty cart");
+            }
+            if (queue.remainingCapacity() == 0) {
+                throw overloaded();
+            }
+
+            OrderIntake created = new OrderIntake();
+            created.setId(UUID.randomUUID().toString());
+            created.setUserId(userId);
+            cart.getCartItems().forEach(item -> created.getItems().put(item.getPizza().getId(), item.getQuantity()));
+            orderIntakeRepository.save(created);
+            cartService.clearCart(userId);
+            return created;
+        });
+
+        if (!queue.offer(intake.getId())) {
+            orderIntakeRepository.deleteById(intake.getId());
+            restoreCart(userId, intake.getItems());
+            throw overloaded();
+        }
+
+        logger.info("Order intake {} queued for user {}", intake.getId(), userId);
+        return OrderIntakeResponse.fromEntity(intake);
+    }
+
+    /**
+     * Get the status of one of the user's intakes
+     */
+    public OrderIntakeResponse getIntake(String reference, Long userId) {
+        OrderIntake intake = orderIntakeRepository.findById(reference)
+                .orElseThrow(() -> new ResourceNotFoundException("Order intake", "reference", reference));
+
+        if (!intake.getUserId().equals(userId)) {
+            throw new UnauthorizedException("You don't have permission to view this order");
+        }
+
+        return OrderIntakeResponse.fromEntity(intake);
+    }
+
+    /**
+     * Queue and throughput statistics for monitoring
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("capacity", queueCapacity);
+        stats.put("workers", workerCount);
+        stats.put("placed", placedOrders.sum());
+        stats.put("failed", failedOrders.sum());
+        stats.put("batches", batches.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("requeued", requeued.sum());
+        return stats;
+    }
+
+    private ServiceUnavailableException overloaded() {
+        rejected.increment();
+        return new ServiceUnavailableException("Too many orders are being placed, please retry shortly",
+                RETRY_AFTER_SECONDS);
+    }
+
+    /**
+     * Worker loop: wait for one intake, then take up to batchSize - 1 more that are already waiting
+     */
+    private void drain() {
+        List<String> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Order intake batch of {} failed", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Place a batch in one transaction; if any order in it fails, the batch is rolled back and
+     * its intakes are placed one per transaction so a single bad cart cannot sink the others
+     */
+    private void process(List<String> batch) {
+        batches.increment();
+        List<PlacedOrder> placed = new ArrayList<>(batch.size());
+
+        if (batch.size() > 1) {
+            try {
+                placed = transactionTemplate.execute(status -> {
+                    List<PlacedOrder> results = new ArrayList<>(batch.size());
+                    for (String reference : batch) {
+                        PlacedOrder order = place(reference);
+                        if (order != null) {
+                            results.add(order);
+                        }
+                    }
+                    return results;
+                });
+                placed.forEach(this::notifyPlaced);
+                return;
+            } catch (RuntimeException e) {
+                logger.debug("Order intake batch rolled back, placing one at a time: {}", e.getMessage());
+                placed = new ArrayList<>(batch.size());
+            }
+        }
+
+        for (String reference : batch) {
+            try {
+                PlacedOrder order = transactionTemplate.execute(status -> place(reference));
+                if (order != null) {
+                    placed.add(order);
+                }
+            } catch (RuntimeException e) {
+                fail(reference, e);
+            }
+        }
+        placed.forEach(this::notifyPlaced);
+    }
+
+    /**
+     * Place the order for one intake within the caller's transaction; null if it is no longer queued.
+     * The intake row stays locked until commit, so the same intake is never placed twice.
+     */
+    private PlacedOrder place(String reference) {
+        OrderIntake intake = orderIntakeRepository.findForUpdate(reference).orElse(null);
+        if (intake == null || intake.getStatus() != OrderIntake.IntakeStatus.QUEUED) {
+            return null;
+        }
+
+        OrderResponse order = orderService.createOrder(intake.getUserId(), intake.getItems());
+        orderIntakeRepository.finish(reference, OrderIntake.IntakeStatus.COMPLETED, order.getId(), null,
+                OrderIntake.IntakeStatus.QUEUED);
+        return new PlacedOrder(reference, intake.getUserId(), order.getId());
+    }
+
+    private void fail(String reference, RuntimeException e) {
+        String reason = e instanceof BadRequestException || e instanceof ResourceNotFoundException
+                ? e.getMessage()
+                : "Order could not be placed";
+        if (!(e instanceof BadRequestException)) {
+            logger.error("Order intake {} failed", reference, e);
+        }
+
+        OrderIntake failed;
+        try {
+            failed = transactionTemplate.execute(status -> {
+                OrderIntake intake = orderIntakeRepository.findById(reference).orElse(null);
+                if (intake == null || orderIntakeRepository.finish(reference, OrderIntake.IntakeStatus.FAILED, null,
+                        reason, OrderIntake.IntakeStatus.QUEUED) == 0) {
+                    return null;
+                }
+                Hibernate.initialize(intake.getItems());
+                return intake;
+            });
+        } catch (RuntimeException ex) {
+            // Left QUEUED; requeueStale offers it again
+            logger.error("Could not record failure of order intake {}", reference, ex);
+            return;
+        }
+
+        if (failed != null) {
+            failedOrders.increment();
+            webSocketService.sendOrderIntakeUpdate(reference, failed.getUserId(),
+                    OrderIntake.IntakeStatus.FAILED, null, reason);
+            restoreCart(failed.getUserId(), failed.getItems());
+        }
+    }
+
+    /**
+     * Put captured lines back into the user's cart so an order that was not placed can be fixed and resubmitted.
+     * Pizzas that can no longer be ordered are left out.
+     */
+    private void restoreCart(Long userId, Map<Long, Integer> items) {
+        MenuSnapshot menu = pizzaService.getSnapshot();
+        List<CartUpdateRequest.CartOperation> operations = new ArrayList<>(items.size());
+        items.forEach((pizzaId, quantity) -> {
+            PizzaResponse pizza = menu.getPizza(pizzaId);
+            if (pizza != null && Boolean.TRUE.equals(pizza.getAvailable())) {
+                operations.add(new CartUpdateRequest.CartOperation(
+                        CartUpdateRequest.OperationType.ADD, pizzaId, quantity));
+            }
+        });
+        if (operations.isEmpty()) {
+            return;
+        }
+
+        try {
+            cartService.updateCart(userId, operations);
+        } catch (RuntimeException e) {
+            logger.warn("Could not restore cart of user {} after a failed order intake", userId, e);
+        }
+    }
+
+    private void notifyPlaced(PlacedOrder order) {
+        placedOrders.increment();
+        webSocketService.sendOrderIntakeUpdate(order.reference(), order.userId(),
+                OrderIntake.IntakeStatus.COMPLETED, order.orderId(), null);
+        webSocketService.broadcastOrderUpdate(order.orderId(), Order.OrderStatus.PLACED);
+    }
+
+    private record PlacedOrder(String reference, Long userId, Long orderId) {
+    }
+}
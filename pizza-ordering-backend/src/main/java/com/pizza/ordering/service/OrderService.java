@@ -1,6 +1,8 @@
 package com.pizza.ordering.service;
 
+import com.pizza.ordering.dto.CursorPage;
 import com.pizza.ordering.dto.OrderResponse;
+import com.pizza.ordering.dto.OrderSummaryResponse;
 import com.pizza.ordering.dto.PizzaResponse;
 import com.pizza.ordering.entity.*;
 import com.pizza.ordering.exception.BadRequestException;
@@ -8,17 +10,30 @@ import com.pizza.ordering.exception.ResourceNotFoundException;
 import com.pizza.ordering.exception.UnauthorizedException;
 import com.pizza.ordering.repository.CartRepository;
 import com.pizza.ordering.repository.OrderRepository;
+import com.pizza.ordering.repository.OrderSummaryRepository;
+import com.pizza.ordering.repository.PizzaRepository;
 import com.pizza.ordering.repository.UserRepository;
+import com.pizza.ordering.util.OrderCursor;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -29,6 +44,14 @@ public class OrderService {
 
     private static final Logger logger = LoggerFactory.getLogger(OrderService.class);
 
+    private static final int MAX_FEED_SIZE = 100;
+
+    private static final int SUMMARY_BACKFILL_BATCH_SIZE = 1000;
+
+    // updatedAt is stamped at flush time by whichever node wrote the order, so an order can commit after
+    // a later-stamped one has been synced; deltas reach back this far to catch it
+    private static final long ORDER_CHANGES_OVERLAP_SECONDS = 60;
+
     @Autowired
     private OrderRepository orderRepository;
 
@@ -38,9 +61,21 @@ public class OrderService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private PizzaRepository pizzaRepository;
+
     @Autowired
     private CartService cartService;
 
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     /**
      * Create order from cart
      */
@@ -48,44 +83,58 @@ public class OrderService {
     public OrderResponse createOrder(Long userId) {
         logger.info("Creating order for user {}", userId);
 
+        // Write-behind carts must reach the database before they are read
+        cartService.flushCart(userId);
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
 
-        Cart cart = cartRepository.findByUserId(userId)
+        Cart cart = cartRepository.findWithItemsByUserId(userId)
                 .orElseThrow(() -> new BadRequestException("Cart is empty"));
 
         if (cart.getCartItems().isEmpty()) {
             throw new BadRequestException("Cannot place order with empty cart");
         }
 
-        // Create order
-        Order order = new Order();
-        order.setUser(user);
-        order.setOrderStatus(Order.OrderStatus.PLACED);
-        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+        Order order = newOrder(user);
+        for (CartItem cartItem : cart.getCartItems()) {
+            addItem(order, cartItem.getPizza(), cartItem.getQuantity());
+        }
+        order = saveOrder(order, user);
 
-        // Calculate total and create order items
-        BigDecimal totalAmount = BigDecimal.ZERO;
+        // Clear cart after order creation
+        cartService.clearCart(userId);
 
-        for (CartItem cartItem : cart.getCartItems()) {
-            OrderItem orderItem = new OrderItem();
-            orderItem.setOrder(order);
-            orderItem.setPizza(cartItem.getPizza());
-            orderItem.setQuantity(cartItem.getQuantity());
-            orderItem.setPrice(cartItem.getPizza().getPrice()); // Snapshot price
+        logger.info("Order created with ID: {}", order.getId());
+        return buildOrderResponse(order);
+    }
 
-            order.addItem(orderItem);
+    /**
+     * Create order from pizza quantities captured earlier (an accepted order intake); the cart is not touched
+     */
+    @Transactional
+    public OrderResponse createOrder(Long userId, Map<Long, Integer> lines) {
+        logger.info("Creating order for user {} from {} captured lines", userId, lines.size());
 
-            BigDecimal itemTotal = cartItem.getPizza().getPrice()
-                    .multiply(BigDecimal.valueOf(cartItem.getQuantity()));
-            totalAmount = totalAmount.add(itemTotal);
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new ResourceNotFoundException("User", "id", userId));
+
+        if (lines.isEmpty()) {
+            throw new BadRequestException("Cannot place order with empty cart");
         }
 
-        order.setTotalAmount(totalAmount);
-        order = orderRepository.save(order);
+        Map<Long, Pizza> pizzas = pizzaRepository.findAllById(lines.keySet()).stream()
+                .collect(Collectors.toMap(Pizza::getId, Function.identity()));
 
-        // Clear cart after order creation
-        cartService.clearCart(userId);
+        Order order = newOrder(user);
+        for (Map.Entry<Long, Integer> line : lines.entrySet()) {
+            Pizza pizza = pizzas.get(line.getKey());
+            if (pizza == null) {
+                throw new BadRequestException("A pizza in this order is no longer on the menu");
+            }
+            addItem(order, pizza, line.getValue());
+        }
+        order = saveOrder(order, user);
 
         logger.info("Order created with ID: {}", order.getId());
         return buildOrderResponse(order);
@@ -97,7 +146,7 @@ public class OrderService {
     public OrderResponse getOrderById(Long orderId, Long userId) {
         logger.debug("Fetching order {} for user {}", orderId, userId);
 
-        Order order = orderRepository.findById(orderId)
+        Order order = orderRepository.findWithItemsById(orderId)
                 .orElseThrow(() -> new ResourceNotFoundException("Order", "id", orderId));
 
         // Verify ownership
@@ -114,20 +163,49 @@ public class OrderService {
     public List<OrderResponse> getUserOrders(Long userId) {
         logger.debug("Fetching orders for user {}", userId);
 
-        List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        List<Order> orders = orderRepository.findWithItemsByUserIdOrderByCreatedAtDesc(userId);
         return orders.stream()
                 .map(this::buildOrderResponse)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Get a page of a user's orders after a cursor, newest first
+     */
+    public CursorPage<OrderResponse> getUserOrders(Long userId, String after, int size) {
+        requireFeedSize(size);
+        OrderCursor cursor = OrderCursor.decode(after);
+        // One extra row tells whether another page follows
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Long> ids = cursor == null
+                ? orderRepository.findHistoryIds(userId, limit)
+                : orderRepository.findHistoryIdsAfter(userId, cursor.getCreatedAt(), cursor.getId(), limit);
+
+        return toCursorPage(ids, size);
+    }
+
+    /**
+     * Get a user's orders changed (created, status or payment updated) after the given time, oldest change first
+     * Clients pass the latest updatedAt they have seen. The result also repeats changes from up to
+     * ORDER_CHANGES_OVERLAP_SECONDS before it, so clients deduplicate by id and updatedAt.
+     */
+    public List<OrderResponse> getUserOrderChanges(Long userId, LocalDateTime since) {
+        logger.debug("Fetching orders for user {} changed since {}", userId, since);
+
+        return orderRepository.findWithItemsByUserIdAndUpdatedAtGreaterThanEqualOrderByUpdatedAtAscIdAsc(userId,
+                        since.minusSeconds(ORDER_CHANGES_OVERLAP_SECONDS)).stream()
+                .map(this::buildOrderResponse)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Get all orders (Admin only)
      */
     public Page<OrderResponse> getAllOrders(Pageable pageable) {
         logger.debug("Fetching all orders with pagination");
 
-        Page<Order> orders = orderRepository.findAllByOrderByCreatedAtDesc(pageable);
-        return orders.map(this::buildOrderResponse);
+        return loadOrders(orderRepository.findPageOfIds(pageable));
     }
 
     /**
@@ -136,8 +214,7 @@ public class OrderService {
     public Page<OrderResponse> getOrdersByStatus(Order.OrderStatus status, Pageable pageable) {
         logger.debug("Fetching orders with status: {}", status);
 
-        Page<Order> orders = orderRepository.findByOrderStatus(status, pageable);
-        return orders.map(this::buildOrderResponse);
+        return loadOrders(orderRepository.findPageOfIdsByOrderStatus(status, pageable));
     }
 
     /**
@@ -158,6 +235,7 @@ public class OrderService {
 
         order.setOrderStatus(newStatus);
         order = orderRepository.save(order);
+        syncSummary(order);
 
         logger.info("Order {} status updated to {}", orderId, newStatus);
         return buildOrderResponse(order);
@@ -185,6 +263,7 @@ public class OrderService {
 
         order.setOrderStatus(Order.OrderStatus.CANCELLED);
         order = orderRepository.save(order);
+        syncSummary(order);
 
         logger.info("Order {} cancelled", orderId);
         return buildOrderResponse(order);
@@ -202,6 +281,7 @@ public class OrderService {
 
         order.setPaymentStatus(paymentStatus);
         orderRepository.save(order);
+        syncSummary(order);
     }
 
     /**
@@ -212,6 +292,207 @@ public class OrderService {
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found for payment intent"));
     }
 
+    /**
+     * Get a page of order summaries after a cursor, newest first (Admin only)
+     * Reads only the order_summary table: one index range scan per page, no joins.
+     */
+    public CursorPage<OrderSummaryResponse> getOrderSummaries(Order.OrderStatus status, String after, int size) {
+        requireFeedSize(size);
+        OrderCursor cursor = OrderCursor.decode(after);
+        // One extra row tells whether another page follows
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<OrderSummary> rows;
+        if (status == null) {
+            rows = cursor == null
+                    ? orderSummaryRepository.findFeed(limit)
+                    : orderSummaryRepository.findFeedAfter(cursor.getCreatedAt(), cursor.getId(), limit);
+        } else {
+            rows = cursor == null
+                    ? orderSummaryRepository.findFeedByOrderStatus(status, limit)
+                    : orderSummaryRepository.findFeedByOrderStatusAfter(status, cursor.getCreatedAt(), cursor.getId(), limit);
+        }
+
+        boolean hasMore = rows.size() > size;
+        List<OrderSummaryResponse> items = (hasMore ? rows.subList(0, size) : rows).stream()
+                .map(OrderSummaryResponse::fromEntity)
+                .collect(Collectors.toList());
+        String nextCursor = null;
+        if (hasMore) {
+            OrderSummaryResponse last = items.get(items.size() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Build summaries for orders placed before the read model existed, a batch per transaction
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillSummaries() {
+        int total = 0;
+        Integer inserted;
+        try {
+            do {
+                inserted = transactionTemplate.execute(status ->
+                        orderSummaryRepository.backfillMissing(SUMMARY_BACKFILL_BATCH_SIZE));
+                total += inserted != null ? inserted : 0;
+            } while (inserted != null && inserted == SUMMARY_BACKFILL_BATCH_SIZE);
+        } catch (RuntimeException e) {
+            // e.g. racing an order placed during startup; the remaining rows are picked up on the next start
+            logger.error("Order summary backfill stopped after {} rows", total, e);
+        }
+
+        if (total > 0) {
+            logger.info("Backfilled {} order summaries", total);
+        }
+    }
+
+    /**
+     * Get a page of the order feed after a cursor (Admin only)
+     * Seeks on (createdAt, id) instead of using OFFSET, and runs no count, so every page costs the same.
+     */
+    public CursorPage<OrderResponse> getOrderFeed(Order.OrderStatus status, String after, int size) {
+        requireFeedSize(size);
+        OrderCursor cursor = OrderCursor.decode(after);
+        // One extra row tells whether another page follows
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<Long> ids;
+        if (status == null) {
+            ids = cursor == null
+                    ? orderRepository.findFeedIds(limit)
+                    : orderRepository.findFeedIdsAfter(cursor.getCreatedAt(), cursor.getId(), limit);
+        } else {
+            ids = cursor == null
+                    ? orderRepository.findFeedIdsByOrderStatus(status, limit)
+                    : orderRepository.findFeedIdsByOrderStatusAfter(status, cursor.getCreatedAt(), cursor.getId(), limit);
+        }
+
+        return toCursorPage(ids, size);
+    }
+
+    private void requireFeedSize(int size) {
+        if (size < 1 || size > MAX_FEED_SIZE) {
+            throw new BadRequestException("size must be between 1 and " + MAX_FEED_SIZE);
+        }
+    }
+
+    /**
+     * Load up to size orders from IDs fetched with one extra row, and derive the next cursor from the last one
+     */
+    private CursorPage<OrderResponse> toCursorPage(List<Long> ids, int size) {
+        boolean hasMore = ids.size() > size;
+        List<OrderResponse> items = loadOrders(hasMore ? ids.subList(0, size) : ids);
+        String nextCursor = null;
+        if (hasMore) {
+            OrderResponse last = items.get(items.size() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    /**
+     * Load a page of orders with items and pizzas in one query, keeping the page's order
+     */
+    private Page<OrderResponse> loadOrders(Page<Long> ids) {
+        if (ids.isEmpty()) {
+            return new PageImpl<>(List.of(), ids.getPageable(), ids.getTotalElements());
+        }
+        Map<Long, OrderResponse> orders = loadOrders(ids.getContent()).stream()
+                .collect(Collectors.toMap(OrderResponse::getId, Function.identity()));
+        return ids.map(orders::get);
+    }
+
+    /**
+     * Load orders by ID with items and pizzas in one query, in the order of the IDs
+     */
+    private List<OrderResponse> loadOrders(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, Order> orders = orderRepository.findWithItemsByIdIn(ids).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity()));
+        return ids.stream()
+                .map(id -> buildOrderResponse(orders.get(id)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * New PLACED order with no items yet
+     */
+    private Order newOrder(User user) {
+        Order order = new Order();
+        order.setUser(user);
+        order.setOrderStatus(Order.OrderStatus.PLACED);
+        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+        order.setTotalAmount(BigDecimal.ZERO);
+        return order;
+    }
+
+    /**
+     * Add a line priced at the pizza's current price and add it to the order total
+     */
+    private void addItem(Order order, Pizza pizza, int quantity) {
+        OrderItem orderItem = new OrderItem();
+        orderItem.setOrder(order);
+        orderItem.setPizza(pizza);
+        orderItem.setQuantity(quantity);
+        orderItem.setPrice(pizza.getPrice()); // Snapshot price
+
+        order.addItem(orderItem);
+        order.setTotalAmount(order.getTotalAmount().add(pizza.getPrice().multiply(BigDecimal.valueOf(quantity))));
+    }
+
+    /**
+     * Insert the order with its items and its summary row
+     */
+    private Order saveOrder(Order order, User user) {
+        // IDs come from the pooled generator, so the order and its items go out as batched inserts on this flush
+        order = orderRepository.saveAndFlush(order);
+        recordSummary(order, user);
+        return order;
+    }
+
+    /**
+     * Insert the summary row of a new order
+     */
+    private void recordSummary(Order order, User user) {
+        int itemCount = 0;
+        StringBuilder itemNames = new StringBuilder();
+        for (OrderItem item : order.getOrderItems()) {
+            itemCount += item.getQuantity();
+            if (itemNames.length() > 0) {
+                itemNames.append(", ");
+            }
+            itemNames.append(item.getQuantity()).append("x ").append(item.getPizza().getName());
+        }
+        if (itemNames.length() > OrderSummary.MAX_ITEM_NAMES_LENGTH) {
+            itemNames.setLength(OrderSummary.MAX_ITEM_NAMES_LENGTH);
+        }
+
+        // persist rather than save: the ID is assigned, so save would first SELECT to check for a row
+        entityManager.persist(new OrderSummary(
+                order.getId(),
+                user.getId(),
+                user.getName(),
+                itemCount,
+                itemNames.toString(),
+                order.getTotalAmount(),
+                order.getOrderStatus(),
+                order.getPaymentStatus(),
+                order.getCreatedAt(),
+                order.getUpdatedAt()));
+    }
+
+    /**
+     * Copy the order's statuses into its summary row
+     */
+    private void syncSummary(Order order) {
+        orderSummaryRepository.updateStatuses(order.getId(), order.getOrderStatus(), order.getPaymentStatus(),
+                LocalDateTime.now());
+    }
+
     /**
      * Build order response DTO
      */
@@ -9,6 +9,7 @@ import com.stripe.Stripe;
 import com.stripe.exception.StripeException;
 import com.stripe.model.PaymentIntent;
 import com.stripe.model.Event;
+import com.stripe.net.RequestOptions;
 import com.stripe.net.Webhook;
 import com.stripe.param.PaymentIntentCreateParams;
 import org.slf4j.Logger;
@@ -77,7 +78,12 @@ public class PaymentService {
                                     .build())
                     .build();
 
-            PaymentIntent paymentIntent = PaymentIntent.create(params);
+            // Stripe deduplicates on this key, so a retry after a lost response gets the same intent back
+            RequestOptions options = RequestOptions.builder()
+                    .setIdempotencyKey("payment-intent-order-" + order.getId())
+                    .build();
+
+            PaymentIntent paymentIntent = PaymentIntent.create(params, options);
 
             // Save payment intent ID to order
             order.setPaymentIntentId(paymentIntent.getId());
@@ -0,0 +1,355 @@
+package com.pizza.ordering.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pizza.ordering.dto.PizzaImportResult;
+import com.pizza.ordering.dto.PizzaRequest;
+import com.pizza.ordering.entity.Pizza;
+import com.pizza.ordering.exception.BadRequestException;
+import com.pizza.ordering.repository.CartRepository;
+import com.pizza.ordering.repository.PizzaRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+/**
+ * Service for bulk menu imports (Admin only).
+ * Rows are streamed from JSON or CSV, validated, matched against existing pizzas by name with one
+ * IN query per chunk, and written with JDBC batch inserts/updates. Each chunk commits separately,
+ * so a connection is never held while the upload is still being read.
+ */
+@Service
+public class PizzaImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PizzaImportService.class);
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private static final String INSERT_SQL =
+            "INSERT INTO pizzas (name, description, price, category, image_url, available, created_at, updated_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String UPDATE_SQL =
+            "UPDATE pizzas SET thumbnail_url = IF(image_url = ?, thumbnail_url, NULL), name = ?, description = ?, " +
+            "price = ?, category = ?, image_url = ?, available = ?, updated_at = ? WHERE id = ?";
+
+    @Autowired
+    private PizzaRepository pizzaRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${menu.import.batch.size}")
+    private int batchSize;
+
+    /**
+     * Import a JSON array of PizzaRequest objects
+     * Elements that are not objects or hold values of the wrong type are rejected per row;
+     * only malformed JSON aborts the import.
+     */
+    public PizzaImportResult importJson(InputStream input) {
+        ImportRun run = new ImportRun();
+        try (run; JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new BadRequestException("Expected a JSON array of pizzas");
+            }
+            int row = 0;
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                row++;
+                JsonNode node = parser.readValueAsTree();
+                if (!node.isObject()) {
+                    run.reject(row, "Expected a pizza object");
+                    continue;
+                }
+                try {
+                    run.add(row, objectMapper.treeToValue(node, PizzaRequest.class));
+                } catch (JsonMappingException e) {
+                    run.reject(row, describe(e));
+                }
+            }
+            run.flush();
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("Malformed JSON import: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import: " + e.getMessage());
+        }
+        return run.result;
+    }
+
+    /**
+     * Import CSV with a header row: name, description, price, category, imageUrl and optionally available
+     */
+    public PizzaImportResult importCsv(InputStream input) {
+        ImportRun run = new ImportRun();
+        try (run; Reader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = readCsvRecord(reader);
+            if (header == null) {
+                throw new BadRequestException("CSV import is empty");
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", ""), i);
+            }
+            for (String required : List.of("name", "description", "price", "category", "imageurl")) {
+                if (!columns.containsKey(required)) {
+                    throw new BadRequestException("CSV header is missing column '" + required + "'");
+                }
+            }
+
+            int row = 0;
+            List<String> record;
+            while ((record = readCsvRecord(reader)) != null) {
+                row++;
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                try {
+                    run.add(row, toRequest(record, columns));
+                } catch (IllegalArgumentException e) {
+                    run.reject(row, e.getMessage());
+                }
+            }
+            run.flush();
+        } catch (IOException e) {
+            throw new BadRequestException("Could not read import: " + e.getMessage());
+        }
+        return run.result;
+    }
+
+    /**
+     * Row error for a value that could not be bound, e.g. "Invalid value for 'price'"
+     */
+    private String describe(JsonMappingException e) {
+        String field = e.getPath().stream()
+                .map(JsonMappingException.Reference::getFieldName)
+                .filter(Objects::nonNull)
+                .collect(Collectors.joining("."));
+        return field.isEmpty() ? "Invalid pizza: " + e.getOriginalMessage() : "Invalid value for '" + field + "'";
+    }
+
+    private PizzaRequest toRequest(List<String> record, Map<String, Integer> columns) {
+        PizzaRequest request = new PizzaRequest();
+        request.setName(field(record, columns, "name"));
+        request.setDescription(field(record, columns, "description"));
+        request.setImageUrl(field(record, columns, "imageurl"));
+
+        String price = field(record, columns, "price");
+        if (price != null) {
+            try {
+                request.setPrice(new BigDecimal(price));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid price '" + price + "'");
+            }
+        }
+
+        String category = field(record, columns, "category");
+        if (category != null) {
+            try {
+                request.setCategory(Pizza.PizzaCategory.valueOf(category.toUpperCase(Locale.ROOT)));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid category '" + category + "'");
+            }
+        }
+
+        String available = field(record, columns, "available");
+        request.setAvailable(available == null || Boolean.parseBoolean(available));
+        return request;
+    }
+
+    private String field(List<String> record, Map<String, Integer> columns, String column) {
+        Integer index = columns.get(column);
+        if (index == null || index >= record.size()) {
+            return null;
+        }
+        String value = record.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Read one RFC 4180 record (quoted fields may contain commas, quotes and newlines); null at end of input
+     */
+    private List<String> readCsvRecord(Reader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int c = reader.read();
+        if (c == -1) {
+            return null;
+        }
+        while (c != -1) {
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Write one chunk: a single IN query to find existing names, then batched inserts and updates
+     */
+    private int[] writeChunk(List<PizzaRequest> chunk) {
+        return transactionTemplate.execute(status -> {
+            Map<String, Long> existingIds = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            List<String> names = chunk.stream().map(PizzaRequest::getName).collect(Collectors.toList());
+            for (Object[] row : pizzaRepository.findIdAndNameByNameIn(names)) {
+                existingIds.put((String) row[1], (Long) row[0]);
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> inserts = new ArrayList<>();
+            List<Object[]> updates = new ArrayList<>();
+            List<Long> updatedIds = new ArrayList<>();
+            for (PizzaRequest request : chunk) {
+                Long id = existingIds.get(request.getName());
+                if (id == null) {
+                    inserts.add(new Object[]{request.getName(), request.getDescription(), request.getPrice(),
+                            request.getCategory().name(), request.getImageUrl(), request.getAvailable(), now, now});
+                } else {
+                    updates.add(new Object[]{request.getImageUrl(), request.getName(), request.getDescription(), request.getPrice(),
+                            request.getCategory().name(), request.getImageUrl(), request.getAvailable(), now, id});
+                    updatedIds.add(id);
+                }
+            }
+
+            if (!inserts.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_SQL, inserts);
+            }
+            if (!updates.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SQL, updates);
+                // Prices may have changed; re-price the carts holding the updated pizzas
+                cartRepository.recalculateTotalsForPizzas(updatedIds);
+            }
+            return new int[]{inserts.size(), updates.size()};
+        });
+    }
+
+    /**
+     * State of one import: validated rows are buffered and written a chunk at a time.
+     * Closing it refreshes the menu if any chunk was committed, even when a later one failed.
+     */
+    private class ImportRun implements AutoCloseable {
+
+        private final PizzaImportResult result = new PizzaImportResult();
+        private final Set<String> seenNames = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        private final List<PizzaRequest> pending = new ArrayList<>();
+
+        void add(int row, PizzaRequest request) {
+            Set<ConstraintViolation<PizzaRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                reject(row, violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining(", ")));
+                return;
+            }
+            if (!seenNames.add(request.getName())) {
+                reject(row, "Duplicate name '" + request.getName() + "' in import");
+                return;
+            }
+            if (request.getAvailable() == null) {
+                request.setAvailable(true);
+            }
+
+            result.setReceived(result.getReceived() + 1);
+            pending.add(request);
+            if (pending.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(int row, String message) {
+            result.setReceived(result.getReceived() + 1);
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add("Row " + row + ": " + message);
+            }
+        }
+
+        @Override
+        public void close() {
+            logger.info("Menu import finished: {} received, {} created, {} updated, {} failed",
+                    result.getReceived(), result.getCreated(), result.getUpdated(), result.getFailed());
+            if (result.getCreated() + result.getUpdated() > 0) {
+                eventPublisher.publishEvent(new MenuChangedEvent(null));
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            int[] counts = writeChunk(pending);
+            result.setCreated(result.getCreated() + counts[0]);
+            result.setUpdated(result.getUpdated() + counts[1]);
+            pending.clear();
+        }
+    }
+}
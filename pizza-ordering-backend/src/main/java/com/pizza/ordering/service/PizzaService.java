@@ -1,59 +1,237 @@
 package com.pizza.ordering.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pizza.ordering.dto.MenuDeltaResponse;
 import com.pizza.ordering.dto.PizzaRequest;
 import com.pizza.ordering.dto.PizzaResponse;
 import com.pizza.ordering.entity.Pizza;
 import com.pizza.ordering.exception.BadRequestException;
 import com.pizza.ordering.exception.ResourceNotFoundException;
+import com.pizza.ordering.repository.CartRepository;
 import com.pizza.ordering.repository.PizzaRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * Service for pizza management operations
+ * Reads and searches are served from an in-memory MenuSnapshot that is replaced after each committed menu change.
+ * Changes committed by other nodes are picked up by a periodic check of pizza update times and row count.
  */
 @Service
 public class PizzaService {
 
     private static final Logger logger = LoggerFactory.getLogger(PizzaService.class);
 
+    // Re-check a window before the last sync so rows committed late or stamped by a lagging clock are not missed
+    private static final long MENU_SYNC_OVERLAP_SECONDS = 60;
+
     @Autowired
     private PizzaRepository pizzaRepository;
 
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private WebSocketService webSocketService;
+
+    @Autowired
+    private ImageStorageService imageStorageService;
+
+    private volatile MenuSnapshot snapshot;
+
+    private volatile LocalDateTime lastMenuSync;
+
     /**
      * Get all pizzas
      */
     public List<PizzaResponse> getAllPizzas() {
-        logger.debug("Fetching all pizzas");
-        return pizzaRepository.findAll().stream()
-                .map(PizzaResponse::fromEntity)
-                .collect(Collectors.toList());
+        return getSnapshot().getAllPizzas();
     }
 
     /**
      * Get only available pizzas
      */
     public List<PizzaResponse> getAvailablePizzas() {
-        logger.debug("Fetching available pizzas");
-        return pizzaRepository.findByAvailable(true).stream()
-                .map(PizzaResponse::fromEntity)
-                .collect(Collectors.toList());
+        return getSnapshot().getAvailablePizzas();
+    }
+
+    /**
+     * Get available pizzas in a category
+     */
+    public List<PizzaResponse> getAvailablePizzas(Pizza.PizzaCategory category) {
+        return getSnapshot().getAvailablePizzas(category);
+    }
+
+    /**
+     * Get changes to the public menu since a client's version
+     */
+    public MenuDeltaResponse getMenuChangesSince(long since) {
+        return getSnapshot().deltaSince(since);
+    }
+
+    /**
+     * Search available pizzas by name/description tokens, category and price range
+     */
+    public List<PizzaResponse> searchPizzas(String query, Pizza.PizzaCategory category,
+            BigDecimal minPrice, BigDecimal maxPrice, MenuSnapshot.SearchSort sort) {
+        if (minPrice != null && maxPrice != null && minPrice.compareTo(maxPrice) > 0) {
+            throw new BadRequestException("minPrice must not be greater than maxPrice");
+        }
+        return getSnapshot().search(query, category, minPrice, maxPrice, sort);
     }
 
     /**
      * Get pizza by ID
      */
     public PizzaResponse getPizzaById(Long id) {
-        logger.debug("Fetching pizza with ID: {}", id);
-        Pizza pizza = pizzaRepository.findById(id)
-                .orElseThrow(() -> new ResourceNotFoundException("Pizza", "id", id));
-        return PizzaResponse.fromEntity(pizza);
+        PizzaResponse pizza = getSnapshot().getPizza(id);
+        if (pizza == null) {
+            throw new ResourceNotFoundException("Pizza", "id", id);
+        }
+        return pizza;
+    }
+
+    /**
+     * Current menu snapshot, built on first use
+     */
+    public MenuSnapshot getSnapshot() {
+        MenuSnapshot current = snapshot;
+        return current != null ? current : rebuildSnapshot();
+    }
+
+    /**
+     * Rebuild once startup data seeding has finished
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuildSnapshot();
+    }
+
+    /**
+     * Update the snapshot after a menu change has committed; also runs when published outside a transaction.
+     * A single-pizza change reloads only that pizza and pushes its changed fields to /topic/menu;
+     * anything else rebuilds from scratch and tells clients to refetch.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onMenuChanged(MenuChangedEvent event) {
+        if (event.getPizzaId() == null) {
+            webSocketService.sendMenuReset(rebuildSnapshot().getVersion());
+        } else {
+            applyPizzaChange(event.getPizzaId());
+        }
+    }
+
+    /**
+     * Pull menu changes committed by other nodes into the snapshot.
+     * Updated and new pizzas are applied one by one (already-applied ones are skipped); if the row count
+     * still differs afterwards, a pizza was deleted elsewhere and the snapshot is rebuilt.
+     */
+    @Scheduled(fixedDelayString = "${menu.sync.interval}")
+    public void syncMenu() {
+        LocalDateTime since = lastMenuSync;
+        if (snapshot == null || since == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> changedIds = pizzaRepository.findIdsUpdatedAfter(since.minusSeconds(MENU_SYNC_OVERLAP_SECONDS));
+        long count = pizzaRepository.count();
+
+        changedIds.forEach(this::applyPizzaChange);
+        if (getSnapshot().getAllPizzas().size() != count) {
+            logger.info("Menu row count changed on another node, rebuilding snapshot");
+            webSocketService.sendMenuReset(rebuildSnapshot().getVersion());
+        }
+        lastMenuSync = now;
+    }
+
+    /**
+     * Swap in a snapshot with one pizza reloaded (or removed if it no longer exists); no-op if it is unchanged.
+     * Notifications are sent while holding the lock so clients receive versions in order.
+     */
+    private synchronized void applyPizzaChange(Long pizzaId) {
+        MenuSnapshot current = snapshot;
+        if (current == null) {
+            webSocketService.sendMenuReset(rebuildSnapshot().getVersion());
+            return;
+        }
+        PizzaResponse previous = current.getPizza(pizzaId);
+        PizzaResponse updated = pizzaRepository.findById(pizzaId)
+                .map(PizzaResponse::fromEntity)
+                .orElse(null);
+        Map<String, Object> changes = changedFields(previous, updated);
+        if (previous != null && updated != null && changes.isEmpty()) {
+            return;
+        }
+        MenuSnapshot next = current.withPizza(pizzaId, updated, objectMapper);
+        snapshot = next;
+        logger.debug("Menu snapshot updated to version {} for pizza {}", next.getVersion(), pizzaId);
+
+        webSocketService.sendMenuUpdate(next.getVersion(), pizzaId, changes, updated == null);
+    }
+
+    /**
+     * Load the menu and swap in a new snapshot.
+     * Serialized so a slower rebuild can never overwrite the result of a later one.
+     * The new snapshot starts a new version lineage, so versions from before the rebuild, a restart
+     * or another node get a full menu.
+     */
+    private synchronized MenuSnapshot rebuildSnapshot() {
+        logger.debug("Rebuilding menu snapshot");
+        lastMenuSync = LocalDateTime.now();
+        MenuSnapshot rebuilt = MenuSnapshot.of(pizzaRepository.findAll(), snapshot, objectMapper);
+        snapshot = rebuilt;
+        return rebuilt;
+    }
+
+    /**
+     * Fields of after that differ from before (all fields for a new pizza, none for a deleted one)
+     */
+    private Map<String, Object> changedFields(PizzaResponse before, PizzaResponse after) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (after == null) {
+            return changes;
+        }
+        putIfChanged(changes, "name", before == null ? null : before.getName(), after.getName());
+        putIfChanged(changes, "description", before == null ? null : before.getDescription(), after.getDescription());
+        putIfChanged(changes, "price", before == null ? null : before.getPrice(), after.getPrice());
+        putIfChanged(changes, "category", before == null ? null : before.getCategory(), after.getCategory());
+        putIfChanged(changes, "imageUrl", before == null ? null : before.getImageUrl(), after.getImageUrl());
+        putIfChanged(changes, "thumbnailUrl", before == null ? null : before.getThumbnailUrl(), after.getThumbnailUrl());
+        putIfChanged(changes, "available", before == null ? null : before.getAvailable(), after.getAvailable());
+        return changes;
+    }
+
+    private void putIfChanged(Map<String, Object> changes, String field, Object before, Object after) {
+        boolean same = before instanceof BigDecimal && after instanceof BigDecimal
+                ? ((BigDecimal) before).compareTo((BigDecimal) after) == 0
+                : Objects.equals(before, after);
+        if (!same) {
+            changes.put(field, after);
+        }
     }
 
     /**
@@ -78,6 +256,7 @@ public class PizzaService {
 
         pizza = pizzaRepository.save(pizza);
         logger.info("Pizza created with ID: {}", pizza.getId());
+        eventPublisher.publishEvent(new MenuChangedEvent(pizza.getId()));
 
         return PizzaResponse.fromEntity(pizza);
     }
@@ -97,6 +276,12 @@ public class PizzaService {
             throw new BadRequestException("Pizza with name '" + request.getName() + "' already exists");
         }
 
+        // A thumbnail only belongs to the image it was rendered from
+        if (!request.getImageUrl().equals(pizza.getImageUrl())) {
+            pizza.setThumbnailUrl(null);
+        }
+        boolean priceChanged = pizza.getPrice().compareTo(request.getPrice()) != 0;
+
         pizza.setName(request.getName());
         pizza.setDescription(request.getDescription());
         pizza.setPrice(request.getPrice());
@@ -105,7 +290,35 @@ public class PizzaService {
         pizza.setAvailable(request.getAvailable());
 
         pizza = pizzaRepository.save(pizza);
+        if (priceChanged) {
+            // Cart totals are priced in cents at write time, so re-price the carts holding this pizza
+            cartRepository.recalculateTotalsForPizzas(List.of(id));
+        }
         logger.info("Pizza updated: {}", pizza.getId());
+        eventPublisher.publishEvent(new MenuChangedEvent(pizza.getId()));
+
+        return PizzaResponse.fromEntity(pizza);
+    }
+
+    /**
+     * Replace a pizza's image with an uploaded file (Admin only)
+     * The image and thumbnail are written before the row is touched, so no DB connection is held while decoding.
+     */
+    public PizzaResponse updatePizzaImage(Long id, MultipartFile file) {
+        if (!pizzaRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Pizza", "id", id);
+        }
+
+        ImageStorageService.StoredImage stored = imageStorageService.store(file);
+        String baseUrl = ServletUriComponentsBuilder.fromCurrentContextPath().path("/images/").toUriString();
+
+        Pizza pizza = pizzaRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Pizza", "id", id));
+        pizza.setImageUrl(baseUrl + stored.imageName());
+        pizza.setThumbnailUrl(baseUrl + stored.thumbnailName());
+        pizza = pizzaRepository.save(pizza);
+        logger.info("Pizza {} image set to {}", id, stored.imageName());
+        eventPublisher.publishEvent(new MenuChangedEvent(id));
 
         return PizzaResponse.fromEntity(pizza);
     }
@@ -124,5 +337,6 @@ public class PizzaService {
         // For now, we'll just delete it
         pizzaRepository.delete(pizza);
         logger.info("Pizza deleted: {}", id);
+        eventPublisher.publishEvent(new MenuChangedEvent(id));
     }
 }
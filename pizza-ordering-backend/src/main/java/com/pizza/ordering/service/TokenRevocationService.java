@@ -0,0 +1,128 @@
+package com.pizza.ordering.service;
+
+import com.pizza.ordering.repository.RevokedTokenRepository;
+import com.pizza.ordering.util.BloomFilter;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Service for revoking tokens by JWT ID.
+ * Revoked IDs are kept in an in-memory Bloom filter so the common "not revoked" answer needs no
+ * DB access; only Bloom hits are confirmed against the persistent denylist.
+ * Revocations made by other nodes are pulled into the filter on a short schedule, and the filter
+ * is rebuilt from scratch once expired entries have been purged.
+ */
+@Service
+public class TokenRevocationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationService.class);
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.revocation.bloom.expected}")
+    private int expectedRevocations;
+
+    @Value("${jwt.revocation.bloom.fpp}")
+    private double falsePositiveRate;
+
+    private volatile BloomFilter bloomFilter;
+
+    private volatile LocalDateTime lastSync;
+
+    private final LongAdder bloomHits = new LongAdder();
+
+    /**
+     * Load active revocations into a fresh filter
+     */
+    @PostConstruct
+    public void init() {
+        rebuildFilter();
+    }
+
+    /**
+     * Revoke a token until it expires
+     * The insert is a claim: of several concurrent calls for the same token, on any node, only one returns true.
+     *
+     * @return true if this call revoked the token, false if it had already been revoked
+     */
+    @Transactional
+    public boolean revoke(String tokenId, Instant expiresAt) {
+        if (tokenId == null || expiresAt == null) {
+            return false;
+        }
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault());
+        boolean revoked = revokedTokenRepository.insertIfAbsent(tokenId, expiry) > 0;
+        bloomFilter.put(tokenId);
+        if (revoked) {
+            logger.info("Revoked token {}", tokenId);
+        }
+        return revoked;
+    }
+
+    /**
+     * Check if a token has been revoked
+     * Answers from the local filter, which can lag revocations made on other nodes by one sync interval;
+     * operations that must be single-use should rely on the result of {@link #revoke} instead.
+     */
+    public boolean isRevoked(String tokenId) {
+        if (tokenId == null || !bloomFilter.mightContain(tokenId)) {
+            return false;
+        }
+        bloomHits.increment();
+        return revokedTokenRepository.existsById(tokenId);
+    }
+
+    /**
+     * Number of lookups that had to fall through to the database
+     */
+    public long getBloomHits() {
+        return bloomHits.sum();
+    }
+
+    /**
+     * Pull revocations made by other nodes into the local filter
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync.interval}")
+    public void syncRevocations() {
+        LocalDateTime since = lastSync;
+        LocalDateTime now = LocalDateTime.now();
+        List<String> ids = revokedTokenRepository.findIdsRevokedAfter(since.minusSeconds(1));
+        BloomFilter filter = bloomFilter;
+        ids.forEach(filter::put);
+        lastSync = now;
+    }
+
+    /**
+     * Purge expired entries and rebuild the filter so it does not fill up with dead IDs
+     */
+    @Scheduled(cron = "${jwt.revocation.purge.cron}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        logger.info("Purged {} expired revoked tokens", deleted);
+        rebuildFilter();
+    }
+
+    private void rebuildFilter() {
+        LocalDateTime now = LocalDateTime.now();
+        List<String> activeIds = revokedTokenRepository.findActiveIds(now);
+        BloomFilter filter = new BloomFilter(Math.max(expectedRevocations, activeIds.size() * 2), falsePositiveRate);
+        activeIds.forEach(filter::put);
+        bloomFilter = filter;
+        lastSync = now;
+        logger.debug("Revocation filter rebuilt with {} entries", activeIds.size());
+    }
+}
@@ -1,6 +1,7 @@
 package com.pizza.ordering.service;
 
 import com.pizza.ordering.entity.Order;
+import com.pizza.ordering.entity.OrderIntake;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -38,6 +39,25 @@ public class WebSocketService {
         logger.debug("Order update sent to user {}", userId);
     }
 
+    /**
+     * Send the outcome of an asynchronously placed order to its customer
+     */
+    public void sendOrderIntakeUpdate(String reference, Long userId, OrderIntake.IntakeStatus status, Long orderId,
+            String failureReason) {
+        logger.info("Sending order intake update via WebSocket: intake={}, status={}", reference, status);
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("reference", reference);
+        message.put("intakeStatus", status.name());
+        message.put("orderId", orderId);
+        if (failureReason != null) {
+            message.put("failureReason", failureReason);
+        }
+        message.put("timestamp", System.currentTimeMillis());
+
+        messagingTemplate.convertAndSend("/topic/orders/" + userId, message);
+    }
+
     /**
      * Broadcast order update to all admins
      */
@@ -52,4 +72,34 @@ public class WebSocketService {
         // Broadcast to admin topic
         messagingTemplate.convertAndSend("/topic/admin/orders", message);
     }
+
+    /**
+     * Broadcast a single-pizza menu change with only the fields that changed
+     */
+    public void sendMenuUpdate(long version, Long pizzaId, Map<String, Object> changes, boolean deleted) {
+        logger.debug("Broadcasting menu update: version={}, pizza={}, fields={}", version, pizzaId, changes.keySet());
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("version", version);
+        message.put("pizzaId", pizzaId);
+        message.put("changes", changes);
+        message.put("deleted", deleted);
+        message.put("timestamp", System.currentTimeMillis());
+
+        messagingTemplate.convertAndSend("/topic/menu", message);
+    }
+
+    /**
+     * Tell clients the menu was replaced wholesale and must be refetched
+     */
+    public void sendMenuReset(long version) {
+        logger.debug("Broadcasting menu reset: version={}", version);
+
+        Map<String, Object> message = new HashMap<>();
+        message.put("version", version);
+        message.put("full", true);
+        message.put("timestamp", System.currentTimeMillis());
+
+        messagingTemplate.convertAndSend("/topic/menu", message);
+    }
 }
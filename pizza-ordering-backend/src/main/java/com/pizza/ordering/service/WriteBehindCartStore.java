@@ -0,0 +1,456 @@
+package com.pizza.ordering.service;
+
+import com.pizza.ordering.dto.PizzaResponse;
+import com.pizza.ordering.exception.ResourceNotFoundException;
+import com.pizza.ordering.repository.UserRepository;
+import com.pizza.ordering.util.Money;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * In-memory cart store with write-behind persistence (cart.store.mode=write-behind).
+ * Carts are kept in shards keyed by user ID and mutated under a per-cart lock; a scheduled flusher
+ * writes dirty carts to MySQL in JDBC batches. Changes made since the last flush are lost if the
+ * process dies, and carts are only consistent when each user is served by a single instance.
+ */
+@Component
+@ConditionalOnProperty(name = "cart.store.mode", havingValue = "write-behind")
+public class WriteBehindCartStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindCartStore.class);
+
+    private static final String LOAD_SQL =
+            "SELECT c.id, ci.pizza_id, ci.quantity FROM carts c " +
+            "LEFT JOIN cart_items ci ON ci.cart_id = c.id WHERE c.user_id = ? ORDER BY ci.id";
+
+    private static final String UPSERT_CART_SQL =
+            "INSERT INTO carts (user_id, total_items, total_cents, version, created_at, updated_at) VALUES (?, ?, ?, 0, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE version = version + 1, total_items = VALUES(total_items), total_cents = VALUES(total_cents), " +
+            "updated_at = VALUES(updated_at)";
+
+    private static final String INSERT_ITEM_SQL =
+            "INSERT INTO cart_items (cart_id, pizza_id, quantity, version) VALUES (?, ?, ?, 0)";
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${cart.store.shards}")
+    private int shardCount;
+
+    @Value("${cart.store.flush.batch.size}")
+    private int flushBatchSize;
+
+    @Value("${cart.store.idle.minutes}")
+    private long idleMinutes;
+
+    private Shard[] shards;
+
+    private TransactionTemplate flushTransaction;
+
+    private final LongAdder flushedCarts = new LongAdder();
+    private final LongAdder flushBatches = new LongAdder();
+    private final LongAdder flushFailures = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+        // Flushes commit on their own so a cart is only marked clean once its rows are durable
+        flushTransaction = new TransactionTemplate(transactionManager);
+        flushTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        logger.info("Write-behind cart store enabled with {} shards", shardCount);
+    }
+
+    /**
+     * Current contents of a user's cart, loading it from the database on first access
+     */
+    public CartContents get(Long userId) {
+        return withCart(userId, MemoryCart::contents);
+    }
+
+    /**
+     * Add quantity of a pizza, creating the line if needed
+     */
+    public CartContents add(Long userId, Long pizzaId, int quantity) {
+        return withCart(userId, cart -> {
+            cart.items.merge(pizzaId, quantity, Integer::sum);
+            cart.version++;
+            return cart.contents();
+        });
+    }
+
+    /**
+     * Set the quantity of an existing line
+     */
+    public CartContents set(Long userId, Long pizzaId, int quantity) {
+        return withCart(userId, cart -> {
+            if (cart.items.replace(pizzaId, quantity) == null) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            cart.version++;
+            return cart.contents();
+        });
+    }
+
+    /**
+     * Remove an existing line
+     */
+    public CartContents remove(Long userId, Long pizzaId) {
+        return withCart(userId, cart -> {
+            if (cart.items.remove(pizzaId) == null) {
+                throw new ResourceNotFoundException("Cart item not found");
+            }
+            cart.version++;
+            return cart.contents();
+        });
+    }
+
+    /**
+     * Apply an arbitrary change to the pizza ID to quantity map as one atomic mutation
+     */
+    public CartContents mutate(Long userId, Consumer<Map<Long, Integer>> change) {
+        return withCart(userId, cart -> {
+            change.accept(cart.items);
+            cart.version++;
+            return cart.contents();
+        });
+    }
+
+    /**
+     * Empty the cart; the next flush deletes its rows
+     */
+    public void clear(Long userId) {
+        withCart(userId, cart -> {
+            if (!cart.items.isEmpty()) {
+                cart.items.clear();
+                cart.version++;
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Synchronously write one user's cart if it has unflushed changes
+     */
+    public void flush(Long userId) {
+        MemoryCart cart = shard(userId).carts.get(userId);
+        if (cart == null) {
+            return; // not in memory, so the database is already current
+        }
+        cart.flushLock.lock();
+        try {
+            CartSnapshot snapshot;
+            synchronized (cart) {
+                if (!cart.isDirty()) {
+                    return;
+                }
+                snapshot = cart.snapshot();
+            }
+            write(List.of(snapshot));
+        } finally {
+            cart.flushLock.unlock();
+        }
+    }
+
+    /**
+     * Write all dirty carts in batches and evict idle clean ones
+     */
+    @Scheduled(fixedDelayString = "${cart.store.flush.interval}")
+    public void flushDirty() {
+        long idleBefore = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleMinutes);
+        for (Shard shard : shards) {
+            flushShard(shard);
+            evictIdle(shard, idleBefore);
+        }
+    }
+
+    /**
+     * Flush everything before the database goes away
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (Shard shard : shards) {
+            flushShard(shard);
+        }
+    }
+
+    /**
+     * Store statistics
+     */
+    public Map<String, Object> getStats() {
+        int carts = 0;
+        int dirty = 0;
+        for (Shard shard : shards) {
+            carts += shard.carts.size();
+            dirty += shard.dirty.size();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("mode", "write-behind");
+        stats.put("shards", shards.length);
+        stats.put("carts", carts);
+        stats.put("dirty", dirty);
+        stats.put("flushedCarts", flushedCarts.sum());
+        stats.put("flushBatches", flushBatches.sum());
+        stats.put("flushFailures", flushFailures.sum());
+        stats.put("evictions", evictions.sum());
+        return stats;
+    }
+
+    /**
+     * Run action on the user's cart under its lock, marking it dirty if the action changed it
+     */
+    private <T> T withCart(Long userId, Function<MemoryCart, T> action) {
+        Shard shard = shard(userId);
+        while (true) {
+            MemoryCart cart = shard.carts.get(userId);
+            if (cart == null) {
+                MemoryCart loaded = load(userId);
+                MemoryCart existing = shard.carts.putIfAbsent(userId, loaded);
+                cart = existing != null ? existing : loaded;
+            }
+            synchronized (cart) {
+                if (cart.evicted) {
+                    continue; // lost a race with the evictor; load again
+                }
+                long before = cart.version;
+                T result = action.apply(cart);
+                cart.lastAccessMillis = System.currentTimeMillis();
+                if (cart.version != before) {
+                    shard.dirty.add(userId);
+                }
+                return result;
+            }
+        }
+    }
+
+    private MemoryCart load(Long userId) {
+        MemoryCart cart = new MemoryCart(userId);
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            cart.cartId = rs.getLong(1);
+            long pizzaId = rs.getLong(2);
+            if (!rs.wasNull()) {
+                cart.items.put(pizzaId, rs.getInt(3));
+            }
+        }, userId);
+
+        if (cart.cartId == null && !userRepository.existsById(userId)) {
+            throw new ResourceNotFoundException("User", "id", userId);
+        }
+        return cart;
+    }
+
+    private void flushShard(Shard shard) {
+        List<CartSnapshot> batch = new ArrayList<>(flushBatchSize);
+        List<MemoryCart> locked = new ArrayList<>(flushBatchSize);
+        Iterator<Long> dirtyIds = shard.dirty.iterator();
+
+        while (dirtyIds.hasNext()) {
+            Long userId = dirtyIds.next();
+            dirtyIds.remove();
+            MemoryCart cart = shard.carts.get(userId);
+            if (cart == null) {
+                continue;
+            }
+            if (!cart.flushLock.tryLock()) {
+                shard.dirty.add(userId); // being flushed synchronously; pick it up next time
+                continue;
+            }
+            synchronized (cart) {
+                if (!cart.isDirty()) {
+                    cart.flushLock.unlock();
+                    continue;
+                }
+                batch.add(cart.snapshot());
+            }
+            locked.add(cart);
+
+            if (batch.size() >= flushBatchSize) {
+                writeBatch(shard, batch, locked);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(shard, batch, locked);
+        }
+    }
+
+    private void writeBatch(Shard shard, List<CartSnapshot> batch, List<MemoryCart> locked) {
+        try {
+            write(batch);
+        } catch (RuntimeException e) {
+            flushFailures.increment();
+            logger.error("Failed to flush {} carts; will retry", batch.size(), e);
+            batch.forEach(snapshot -> shard.dirty.add(snapshot.userId()));
+        } finally {
+            locked.forEach(cart -> cart.flushLock.unlock());
+            batch.clear();
+            locked.clear();
+        }
+    }
+
+    /**
+     * Write carts in one transaction: upsert cart rows with their totals, then replace their items with batched inserts.
+     * Items whose pizza has been deleted from the menu are dropped.
+     */
+    private void write(List<CartSnapshot> batch) {
+        Map<Long, Long> cartIds = flushTransaction.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            MenuSnapshot menu = pizzaService.getSnapshot();
+            List<Object[]> cartRows = new ArrayList<>(batch.size());
+            List<Long> userIds = new ArrayList<>(batch.size());
+            for (CartSnapshot snapshot : batch) {
+                int totalItems = 0;
+                long totalCents = 0;
+                for (Map.Entry<Long, Integer> item : snapshot.items().entrySet()) {
+                    PizzaResponse pizza = menu.getPizza(item.getKey());
+                    if (pizza != null) {
+                        totalItems += item.getValue();
+                        totalCents += item.getValue() * Money.toCents(pizza.getPrice());
+                    }
+                }
+                cartRows.add(new Object[]{snapshot.userId(), totalItems, totalCents, now, now});
+                userIds.add(snapshot.userId());
+            }
+            jdbcTemplate.batchUpdate(UPSERT_CART_SQL, cartRows);
+
+            Map<Long, Long> ids = new HashMap<>();
+            namedParameterJdbcTemplate.query("SELECT id, user_id FROM carts WHERE user_id IN (:userIds)",
+                    Map.of("userIds", userIds),
+                    rs -> {
+                        ids.put(rs.getLong("user_id"), rs.getLong("id"));
+                    });
+
+            namedParameterJdbcTemplate.update("DELETE FROM cart_items WHERE cart_id IN (:cartIds)",
+                    Map.of("cartIds", ids.values()));
+
+            List<Object[]> itemRows = new ArrayList<>();
+            for (CartSnapshot snapshot : batch) {
+                Long cartId = ids.get(snapshot.userId());
+                snapshot.items().forEach((pizzaId, quantity) -> {
+                    if (menu.getPizza(pizzaId) != null) {
+                        itemRows.add(new Object[]{cartId, pizzaId, quantity});
+                    }
+                });
+            }
+            if (!itemRows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_ITEM_SQL, itemRows);
+            }
+            return ids;
+        });
+
+        for (CartSnapshot snapshot : batch) {
+            MemoryCart cart = shard(snapshot.userId()).carts.get(snapshot.userId());
+            if (cart != null) {
+                synchronized (cart) {
+                    cart.flushedVersion = Math.max(cart.flushedVersion, snapshot.version());
+                    cart.cartId = cartIds.get(snapshot.userId());
+                }
+            }
+        }
+        flushedCarts.add(batch.size());
+        flushBatches.increment();
+    }
+
+    private void evictIdle(Shard shard, long idleBefore) {
+        for (MemoryCart cart : shard.carts.values()) {
+            synchronized (cart) {
+                if (!cart.isDirty() && cart.lastAccessMillis < idleBefore) {
+                    cart.evicted = true;
+                    shard.carts.remove(cart.userId, cart);
+                    evictions.increment();
+                }
+            }
+        }
+    }
+
+    private Shard shard(Long userId) {
+        return shards[(int) Math.floorMod(userId, (long) shards.length)];
+    }
+
+    /**
+     * Immutable view of a cart: database ID (null until first flushed) and pizza ID to quantity, in insertion order
+     */
+    public record CartContents(Long cartId, Map<Long, Integer> items) {
+    }
+
+    private record CartSnapshot(Long userId, long version, Map<Long, Integer> items) {
+    }
+
+    private static final class Shard {
+        private final ConcurrentHashMap<Long, MemoryCart> carts = new ConcurrentHashMap<>();
+        private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+    }
+
+    /**
+     * Mutable cart state; guarded by its own monitor, with flushLock serializing writes of the same cart
+     */
+    private static final class MemoryCart {
+        private final Long userId;
+        private final Map<Long, Integer> items = new LinkedHashMap<>();
+        private final ReentrantLock flushLock = new ReentrantLock();
+        private Long cartId;
+        private long version;
+        private long flushedVersion;
+        private long lastAccessMillis = System.currentTimeMillis();
+        private boolean evicted;
+
+        private MemoryCart(Long userId) {
+            this.userId = userId;
+        }
+
+        private boolean isDirty() {
+            return version > flushedVersion;
+        }
+
+        private CartContents contents() {
+            return new CartContents(cartId, Collections.unmodifiableMap(new LinkedHashMap<>(items)));
+        }
+
+        private CartSnapshot snapshot() {
+            return new CartSnapshot(userId, version, new LinkedHashMap<>(items));
+        }
+    }
+}
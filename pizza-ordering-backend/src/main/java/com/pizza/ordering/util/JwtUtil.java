@@ -1,6 +1,9 @@
 package com.pizza.ordering.util;
 
+import com.pizza.ordering.security.JwtClaims;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -8,11 +11,14 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import jakarta.annotation.PostConstruct;
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 /**
@@ -27,11 +33,30 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    @Value("${jwt.refresh.expiration}")
+    private Long refreshExpiration;
+
+    private SecretKey signingKey;
+
+    private JwtParser jwtParser;
+
+    /**
+     * Build the signing key and parser once; both are immutable and thread-safe
+     */
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
     /**
-     * Generate secret key from configured secret
+     * Verify signature and expiry and return the token's claims.
+     * Throws JwtException (or IllegalArgumentException for a blank token) if the token is not valid.
      */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    public JwtClaims parseToken(String token) {
+        return JwtClaims.from(extractAllClaims(token));
     }
 
     /**
@@ -60,18 +85,7 @@ public class JwtUtil {
      * Extract all claims from token
      */
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    /**
-     * Check if token is expired
-     */
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return jwtParser.parseClaimsJws(token).getBody();
     }
 
     /**
@@ -91,19 +105,50 @@ public class JwtUtil {
         return createToken(claims, username);
     }
 
+    /**
+     * Generate short-lived access token carrying the user ID and role, so requests can be authenticated
+     * without a user lookup
+     */
+    public String generateToken(Long userId, String username, String role) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", userId);
+        claims.put("role", role);
+        claims.put("typ", JwtClaims.TYPE_ACCESS);
+        return createToken(claims, username, expiration);
+    }
+
+    /**
+     * Generate long-lived refresh token, only accepted by the refresh endpoint
+     */
+    public String generateRefreshToken(Long userId, String username, String role) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", userId);
+        claims.put("role", role);
+        claims.put("typ", JwtClaims.TYPE_REFRESH);
+        return createToken(claims, username, refreshExpiration);
+    }
+
     /**
      * Create JWT token
      */
     private String createToken(Map<String, Object> claims, String subject) {
+        return createToken(claims, subject, expiration);
+    }
+
+    /**
+     * Create JWT token with a unique ID so it can be revoked
+     */
+    private String createToken(Map<String, Object> claims, String subject, long ttlMillis) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + expiration);
+        Date expiryDate = new Date(now.getTime() + ttlMillis);
 
         return Jwts.builder()
                 .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -111,8 +156,8 @@ public class JwtUtil {
      * Validate token
      */
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        final JwtClaims claims = parseToken(token);
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.isExpired(Instant.now()));
     }
 
     /**
@@ -120,8 +165,8 @@ public class JwtUtil {
      */
     public Boolean validateToken(String token) {
         try {
-            return !isTokenExpired(token);
-        } catch (Exception e) {
+            return !parseToken(token).isExpired(Instant.now());
+        } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
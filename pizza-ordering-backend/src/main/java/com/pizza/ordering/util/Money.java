@@ -0,0 +1,27 @@
+package com.pizza.ordering.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversions between decimal amounts and long minor units (cents)
+ */
+public final class Money {
+
+    private Money() {
+    }
+
+    /**
+     * Amount in cents, rounding half-up beyond two decimal places
+     */
+    public static long toCents(BigDecimal amount) {
+        return amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Decimal amount with two decimal places
+     */
+    public static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+}
@@ -0,0 +1,165 @@
+package com.pizza.ordering.service;
+
+import com.pizza.ordering.dto.CartResponse;
+import com.pizza.ordering.dto.CartUpdateRequest;
+import com.pizza.ordering.dto.PizzaRequest;
+import com.pizza.ordering.entity.Cart;
+import com.pizza.ordering.entity.CartItem;
+import com.pizza.ordering.entity.Pizza;
+import com.pizza.ordering.entity.User;
+import com.pizza.ordering.repository.CartRepository;
+import com.pizza.ordering.repository.UserRepository;
+import com.pizza.ordering.util.Money;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that the running cart totals stay in step with the cart's items after every kind of write.
+ * Runs against the configured MySQL database (the cart writes use MySQL upserts); the data it
+ * creates is removed afterwards.
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=cart-totals-test-secret-that-is-at-least-256-bits-long",
+        "jwt.expiration=900000",
+        "cart.store.mode=database",
+        "order.intake.mode=sync"
+})
+class CartTotalsTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Long userId;
+    private Long margheritaId;
+    private Long pepperoniId;
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+
+        User user = new User();
+        user.setName("Cart Totals");
+        user.setEmail("cart-totals-" + suffix + "@example.com");
+        user.setPassword("not-used");
+        user.setRole(User.Role.CUSTOMER);
+        userId = userRepository.save(user).getId();
+
+        margheritaId = createPizza("Margherita " + suffix, "9.99", Pizza.PizzaCategory.VEG);
+        pepperoniId = createPizza("Pepperoni " + suffix, "12.45", Pizza.PizzaCategory.NON_VEG);
+    }
+
+    @AfterEach
+    void tearDown() {
+        cartRepository.findByUserId(userId).ifPresent(cartRepository::delete);
+        userRepository.deleteById(userId);
+        pizzaService.deletePizza(margheritaId);
+        pizzaService.deletePizza(pepperoniId);
+    }
+
+    @Test
+    void addKeepsTotalsInStep() {
+        cartService.addToCart(userId, margheritaId);
+        cartService.addToCart(userId, margheritaId);
+        CartResponse response = cartService.addToCart(userId, pepperoniId);
+
+        assertTotals(response, 3, "32.43");
+    }
+
+    @Test
+    void setKeepsTotalsInStep() {
+        cartService.addToCart(userId, margheritaId);
+        cartService.addToCart(userId, pepperoniId);
+        CartResponse response = cartService.updateCartItem(userId, margheritaId, 4);
+
+        assertTotals(response, 5, "52.41");
+    }
+
+    @Test
+    void patchKeepsTotalsInStep() {
+        cartService.addToCart(userId, margheritaId);
+        CartResponse response = cartService.updateCart(userId, List.of(
+                operation(CartUpdateRequest.OperationType.ADD, pepperoniId, 2),
+                operation(CartUpdateRequest.OperationType.SET, margheritaId, 3),
+                operation(CartUpdateRequest.OperationType.ADD, margheritaId, 1)));
+
+        assertTotals(response, 6, "64.86");
+
+        response = cartService.updateCart(userId, List.of(
+                operation(CartUpdateRequest.OperationType.REMOVE, pepperoniId, null)));
+
+        assertTotals(response, 4, "39.96");
+    }
+
+    @Test
+    void removeKeepsTotalsInStep() {
+        cartService.addToCart(userId, margheritaId);
+        cartService.addToCart(userId, pepperoniId);
+        CartResponse response = cartService.removeFromCart(userId, margheritaId);
+
+        assertTotals(response, 1, "12.45");
+    }
+
+    @Test
+    void clearResetsTotals() {
+        cartService.addToCart(userId, margheritaId);
+        cartService.addToCart(userId, pepperoniId);
+        cartService.clearCart(userId);
+
+        assertTotals(cartService.getCart(userId), 0, "0.00");
+    }
+
+    /**
+     * Compare the response and the stored running totals with totals summed from the stored items
+     */
+    private void assertTotals(CartResponse response, int expectedItems, String expectedTotal) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Cart cart = cartRepository.findWithItemsByUserId(userId).orElseThrow();
+
+            int items = 0;
+            long cents = 0;
+            for (CartItem item : cart.getCartItems()) {
+                items += item.getQuantity();
+                cents += item.getQuantity() * Money.toCents(item.getPizza().getPrice());
+            }
+
+            assertThat(cart.getTotalItems()).isEqualTo(items).isEqualTo(expectedItems);
+            assertThat(cart.getTotalCents()).isEqualTo(cents).isEqualTo(Money.toCents(new BigDecimal(expectedTotal)));
+        });
+
+        assertThat(response.getTotalItems()).isEqualTo(expectedItems);
+        assertThat(response.getTotalPrice()).isEqualByComparingTo(expectedTotal);
+    }
+
+    private Long createPizza(String name, String price, Pizza.PizzaCategory category) {
+        PizzaRequest request = new PizzaRequest(name, "Cart totals test pizza", new BigDecimal(price), category,
+                "https://example.com/pizza.jpg", true);
+        return pizzaService.createPizza(request).getId();
+    }
+
+    private static CartUpdateRequest.CartOperation operation(CartUpdateRequest.OperationType type, Long pizzaId,
+            Integer quantity) {
+        return new CartUpdateRequest.CartOperation(type, pizzaId, quantity);
+    }
+}
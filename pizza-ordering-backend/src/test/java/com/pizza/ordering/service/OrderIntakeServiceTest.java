@@ -0,0 +1,157 @@
+package com.pizza.ordering.service;
+
+import com.pizza.ordering.dto.OrderIntakeResponse;
+import com.pizza.ordering.dto.OrderResponse;
+import com.pizza.ordering.dto.PizzaRequest;
+import com.pizza.ordering.entity.OrderIntake;
+import com.pizza.ordering.entity.Pizza;
+import com.pizza.ordering.entity.User;
+import com.pizza.ordering.repository.CartRepository;
+import com.pizza.ordering.repository.OrderIntakeRepository;
+import com.pizza.ordering.repository.OrderRepository;
+import com.pizza.ordering.repository.OrderSummaryRepository;
+import com.pizza.ordering.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that asynchronous order intake places the cart captured at submit time.
+ * Runs against the configured MySQL database; the data it creates is removed afterwards.
+ */
+@SpringBootTest(properties = {
+        "jwt.secret=order-intake-test-secret-that-is-at-least-256-bits-long",
+        "jwt.expiration=900000",
+        "cart.store.mode=database",
+        "order.intake.mode=async"
+})
+class OrderIntakeServiceTest {
+
+    private static final long PLACEMENT_TIMEOUT_MS = 10_000;
+
+    @Autowired
+    private OrderIntakeService orderIntakeService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private PizzaService pizzaService;
+
+    @Autowired
+    private OrderIntakeRepository orderIntakeRepository;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderSummaryRepository orderSummaryRepository;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Long userId;
+    private Long margheritaId;
+    private Long pepperoniId;
+
+    private final List<OrderIntakeResponse> intakes = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        String suffix = UUID.randomUUID().toString();
+
+        User user = new User();
+        user.setName("Order Intake");
+        user.setEmail("order-intake-" + suffix + "@example.com");
+        user.setPassword("not-used");
+        user.setRole(User.Role.CUSTOMER);
+        userId = userRepository.save(user).getId();
+
+        margheritaId = createPizza("Margherita " + suffix, "9.99", Pizza.PizzaCategory.VEG);
+        pepperoniId = createPizza("Pepperoni " + suffix, "12.45", Pizza.PizzaCategory.NON_VEG);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        for (OrderIntakeResponse intake : intakes) {
+            OrderIntakeResponse placed = awaitPlacement(intake.getReference());
+            if (placed.getOrderId() != null) {
+                orderSummaryRepository.deleteById(placed.getOrderId());
+                orderRepository.deleteById(placed.getOrderId());
+            }
+            orderIntakeRepository.deleteById(intake.getReference());
+        }
+        cartRepository.findByUserId(userId).ifPresent(cartRepository::delete);
+        userRepository.deleteById(userId);
+        pizzaService.deletePizza(margheritaId);
+        pizzaService.deletePizza(pepperoniId);
+    }
+
+    @Test
+    void twoSubmitsInARowPlaceTheirOwnCarts() throws InterruptedException {
+        cartService.addToCart(userId, margheritaId);
+        OrderIntakeResponse first = submit();
+
+        cartService.addToCart(userId, pepperoniId);
+        cartService.addToCart(userId, pepperoniId);
+        OrderIntakeResponse second = submit();
+
+        assertThat(second.getReference()).isNotEqualTo(first.getReference());
+        assertThat(second.getStatus()).isEqualTo(OrderIntake.IntakeStatus.QUEUED);
+        assertThat(cartService.getCart(userId).getTotalItems()).isZero();
+
+        assertThat(placedLines(first)).isEqualTo(Map.of(margheritaId, 1));
+        assertThat(placedLines(second)).isEqualTo(Map.of(pepperoniId, 2));
+    }
+
+    private OrderIntakeResponse submit() {
+        OrderIntakeResponse intake = orderIntakeService.submit(userId);
+        intakes.add(intake);
+        return intake;
+    }
+
+    /**
+     * Pizza ID -> quantity of the order placed for an intake
+     */
+    private Map<Long, Integer> placedLines(OrderIntakeResponse intake) throws InterruptedException {
+        OrderIntakeResponse placed = awaitPlacement(intake.getReference());
+        assertThat(placed.getStatus()).isEqualTo(OrderIntake.IntakeStatus.COMPLETED);
+
+        OrderResponse order = orderService.getOrderById(placed.getOrderId(), userId);
+        return order.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getPizza().getId(), OrderResponse.OrderItemResponse::getQuantity));
+    }
+
+    private OrderIntakeResponse awaitPlacement(String reference) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + PLACEMENT_TIMEOUT_MS;
+        OrderIntakeResponse intake = orderIntakeService.getIntake(reference, userId);
+        while (intake.getStatus() == OrderIntake.IntakeStatus.QUEUED && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            intake = orderIntakeService.getIntake(reference, userId);
+        }
+        return intake;
+    }
+
+    private Long createPizza(String name, String price, Pizza.PizzaCategory category) {
+        PizzaRequest request = new PizzaRequest(name, "Order intake test pizza", new BigDecimal(price), category,
+                "https://example.com/pizza.jpg", true);
+        return pizzaService.createPizza(request).getId();
+    }
+}